@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+import java.util.List;
+
+/**
+ * Creates a shiro subject with a realm, which does not allocate during permission checks, and binds it to the
+ * benchmark thread. So the allocations measured by the benchmarks are caused by the checks itself. Benchmarks which
+ * should measure the default realm path, can bind a subject with a prebuilt {@link AuthorizationInfo}.
+ *
+ * @author Sebastian Sdorra
+ */
+final class BenchmarkSecurity {
+
+  private static final String USERNAME = "trillian";
+
+  private BenchmarkSecurity() {
+  }
+
+  /**
+   * Creates a subject which has the given permissions and binds it to the current thread.
+   *
+   * @param permissions granted permissions
+   *
+   * @return bound subject
+   */
+  static Subject bind(String... permissions) {
+    return bind(new BenchmarkRealm(permissions));
+  }
+
+  /**
+   * Creates a subject with the given authorization info and binds it to the current thread. The checks are executed
+   * by the default implementation of {@link AuthorizingRealm}, the lookup of the authorization info behaves like a
+   * hit of the authorization cache.
+   *
+   * @param info authorization info of the subject
+   *
+   * @return bound subject
+   */
+  static Subject bind(AuthorizationInfo info) {
+    return bind(new InfoRealm(info));
+  }
+
+  private static Subject bind(AuthorizingRealm realm) {
+    DefaultSecurityManager securityManager = new DefaultSecurityManager(realm);
+
+    Subject subject = new Subject.Builder(securityManager)
+      .principals(new SimplePrincipalCollection(USERNAME, realm.getName()))
+      .authenticated(true)
+      .buildSubject();
+
+    ThreadContext.bind(securityManager);
+    ThreadContext.bind(subject);
+    return subject;
+  }
+
+  /**
+   * Removes subject and security manager from the current thread.
+   */
+  static void unbind() {
+    ThreadContext.remove();
+  }
+
+  /**
+   * Realm which scans a fixed array of grants for every check.
+   */
+  private static final class BenchmarkRealm extends AuthorizingRealm {
+
+    private final Permission[] grants;
+
+    private BenchmarkRealm(String... permissions) {
+      grants = new Permission[permissions.length];
+      for (int i = 0; i < permissions.length; i++) {
+        grants[i] = new WildcardPermission(permissions[i]);
+      }
+    }
+
+    @Override
+    public boolean isPermitted(PrincipalCollection principals, Permission permission) {
+      for (Permission grant : grants) {
+        if (grant.implies(permission)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean[] isPermitted(PrincipalCollection principals, List<Permission> permissions) {
+      boolean[] result = new boolean[permissions.size()];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = isPermitted(principals, permissions.get(i));
+      }
+      return result;
+    }
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+      throw new UnsupportedOperationException("benchmark realm checks permissions directly");
+    }
+
+    @Override
+    protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+      throw new UnsupportedOperationException("benchmark realm does not authenticate");
+    }
+  }
+
+  /**
+   * Realm which returns always the same authorization info.
+   */
+  private static final class InfoRealm extends AuthorizingRealm {
+
+    private final AuthorizationInfo info;
+
+    private InfoRealm(AuthorizationInfo info) {
+      this.info = info;
+      setAuthorizationCachingEnabled(false);
+    }
+
+    @Override
+    protected AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+      return info;
+    }
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+      return info;
+    }
+
+    @Override
+    protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+      throw new UnsupportedOperationException("benchmark realm does not authenticate");
+    }
+  }
+}
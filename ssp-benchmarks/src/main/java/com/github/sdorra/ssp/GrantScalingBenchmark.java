@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.subject.Subject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares plain shiro checks with the generated checks for subjects with a growing number of grants. The grant,
+ * which permits the checked objects, is the last one of the authorization info, so a linear scan has to visit every
+ * grant. Run with {@code java -jar ssp-benchmarks/target/benchmarks.jar GrantScalingBenchmark -prof gc} to see
+ * throughput, average time and allocation rate.
+ *
+ * @author Sebastian Sdorra
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrantScalingBenchmark {
+
+  private static final String ID = "42";
+  private static final Permission READ = new WildcardPermission("documents:read:" + ID);
+
+  @Param({"10", "1000", "100000"})
+  private int grants;
+
+  @Param({"false", "true"})
+  private boolean indexed;
+
+  private Subject subject;
+  private PermissionActionCheck<Document> readCheck;
+  private GuardedDocument guardedDocument;
+  private List<String> ids;
+
+  @Setup
+  public void setUp() {
+    SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+    for (int i = 1; i < grants; i++) {
+      info.addObjectPermission(new WildcardPermission("documents:read:document-" + i));
+    }
+    info.addObjectPermission(new WildcardPermission("documents:read:" + ID));
+    info.addObjectPermission(new WildcardPermission("guarded:*:" + ID));
+
+    AuthorizationInfo authorizationInfo = info;
+    if (indexed) {
+      authorizationInfo = new IndexedAuthorizationInfo(info, new WildcardPermissionResolver());
+    }
+    subject = BenchmarkSecurity.bind(authorizationInfo);
+    readCheck = DocumentPermissions.read();
+    guardedDocument = new GuardedDocument(ID);
+
+    ids = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      ids.add(i % 10 == 0 ? ID : "unknown-" + i);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkSecurity.unbind();
+  }
+
+  @Benchmark
+  public boolean shiroString() {
+    return subject.isPermitted("documents:read:" + ID);
+  }
+
+  @Benchmark
+  public boolean shiroPermission() {
+    return subject.isPermitted(READ);
+  }
+
+  @Benchmark
+  public boolean permissionCheck() {
+    return DocumentPermissions.read(ID).isPermitted();
+  }
+
+  @Benchmark
+  public boolean guardedCheck() {
+    return GuardedDocumentPermissions.modify(guardedDocument).isPermitted();
+  }
+
+  @Benchmark
+  public boolean customCheck() {
+    return GuardedDocumentPermissions.custom("publish", guardedDocument).isPermitted();
+  }
+
+  @Benchmark
+  public boolean actionCheck() {
+    return readCheck.isPermitted(ID);
+  }
+
+  @Benchmark
+  public BitSet actionCheckBatch() {
+    return readCheck.isPermitted(ids);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.subject.Subject;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Permission object with guards and custom actions, used by the benchmarks.
+ *
+ * @author Sebastian Sdorra
+ */
+@StaticPermissions(
+  value = "guarded",
+  custom = true,
+  customGlobal = true,
+  guards = {
+    @Guard(guard = GuardedDocument.ArchivedGuard.class, guardedPermissions = "modify"),
+    @Guard(guard = GuardedDocument.ArchivedGuard.class)
+  }
+)
+public class GuardedDocument implements PermissionObject {
+
+  private final String id;
+
+  public GuardedDocument(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Guard which denies every action on archived documents, all other checks are delegated to shiro.
+   */
+  public static class ArchivedGuard implements PermissionGuard<GuardedDocument> {
+
+    @Override
+    public PermissionActionCheckInterceptor<GuardedDocument> intercept(String permission) {
+      return new PermissionActionCheckInterceptor<GuardedDocument>() {
+        @Override
+        public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+          return !id.startsWith("archived-") && delegate.getAsBoolean();
+        }
+      };
+    }
+  }
+}
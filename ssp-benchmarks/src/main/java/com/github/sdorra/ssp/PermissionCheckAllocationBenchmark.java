@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.subject.Subject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocations of the generated checks with a plain shiro check of a preconstructed permission. Run with
+ * {@code java -jar ssp-benchmarks/target/benchmarks.jar PermissionCheckAllocationBenchmark -prof gc}, the
+ * {@code gc.alloc.rate.norm} of {@link #globalCheck()} must be equal to the one of {@link #shiroPermission()}. The
+ * {@code PermissionCheckAllocationTest} of ssp-lib fails the build, if a global check starts to allocate.
+ *
+ * @author Sebastian Sdorra
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionCheckAllocationBenchmark {
+
+  private static final Permission CREATE = new WildcardPermission("documents:create");
+
+  private Subject subject;
+
+  @Setup
+  public void setUp() {
+    subject = BenchmarkSecurity.bind("documents:create", "documents:read:42");
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkSecurity.unbind();
+  }
+
+  @Benchmark
+  public boolean shiroPermission() {
+    return subject.isPermitted(CREATE);
+  }
+
+  @Benchmark
+  public boolean shiroString() {
+    return subject.isPermitted("documents:create");
+  }
+
+  @Benchmark
+  public boolean globalCheck() {
+    return DocumentPermissions.create().isPermitted();
+  }
+
+  @Benchmark
+  public boolean itemCheck() {
+    return DocumentPermissions.read("42").isPermitted();
+  }
+}
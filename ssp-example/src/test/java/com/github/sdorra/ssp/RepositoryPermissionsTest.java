@@ -31,7 +31,11 @@ import org.apache.shiro.authz.UnauthorizedException;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @SubjectAware(
@@ -74,6 +78,45 @@ public class RepositoryPermissionsTest {
         assertFalse(RepositoryPermissions.delete("mustNotBeDeleted").isPermitted());
     }
 
+    @Test
+    public void testGlobalChecksAreReused() {
+        assertSame(RepositoryPermissions.create(), RepositoryPermissions.create());
+        assertSame(RepositoryPermissions.custom("fork"), RepositoryPermissions.custom("fork"));
+    }
+
+    @Test
+    public void testActionChecksAreShared() {
+        assertSame(RepositoryPermissions.DELETE_CHECK, RepositoryPermissions.delete());
+        assertTrue(RepositoryPermissions.DELETE_CHECK.isPermitted("1234"));
+        assertFalse(RepositoryPermissions.DELETE_CHECK.isPermitted("123"));
+    }
+
+    @Test
+    public void testAny() {
+        assertFalse(RepositoryPermissions.readAny());
+        assertTrue(RepositoryPermissions.deleteAny());
+    }
+
+    @Test
+    public void testMatrix() {
+        PermissionMatrix<Repository> matrix = RepositoryPermissions.matrix(
+            Arrays.asList(new Repository("123"), new Repository("1234"), new Repository("mustNotBeDeleted")),
+            RepositoryPermissions.ACTION_READ, RepositoryPermissions.ACTION_DELETE, "merge"
+        );
+        assertEquals(3, matrix.size());
+        assertEquals(Arrays.asList("read", "delete", "merge"), matrix.getActions());
+
+        assertFalse(matrix.isPermitted(0, 0));
+        assertFalse(matrix.isPermitted(0, 1));
+        assertFalse(matrix.isPermitted(0, "merge"));
+
+        assertFalse(matrix.isPermitted(1, "read"));
+        assertTrue(matrix.isPermitted(1, "delete"));
+        assertTrue(matrix.isPermitted(1, "merge"));
+
+        assertFalse(matrix.isPermitted(2, "delete"));
+    }
+
     @Test(expected = UnauthorizedException.class)
     public void testCheck() {
         RepositoryPermissions.read("123").check();
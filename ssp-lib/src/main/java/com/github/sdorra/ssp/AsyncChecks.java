@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.subject.Subject;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Helpers for asynchronous permission checks. The realm is asked on the executor with the subject of the caller bound
+ * to the worker thread.
+ *
+ * @author Sebastian Sdorra
+ */
+final class AsyncChecks {
+
+  private AsyncChecks() {
+  }
+
+  /**
+   * Asks the realm on the executor, whether the subject has the permission.
+   *
+   * @param subject subject to check
+   * @param permission typed permission without id or any other permission
+   * @param id id of the permission object or {@code null}
+   * @param executor executor for the realm check
+   *
+   * @return future decision
+   */
+  static CompletableFuture<Boolean> isPermitted(Subject subject, Permission permission, String id, Executor executor) {
+    // the permission context is confined to the calling thread
+    Callable<Boolean> check = subject.associateWith(() -> DecisionCaches.isPermitted(null, subject, permission, id));
+    return CompletableFuture.supplyAsync(() -> call(check), executor);
+  }
+
+  /**
+   * Checks the permission with the realm on the executor. The returned future fails with an
+   * {@link org.apache.shiro.authz.AuthorizationException}, if the permission is not granted.
+   *
+   * @param subject subject to check
+   * @param permission typed permission without id or any other permission
+   * @param id id of the permission object or {@code null}
+   * @param executor executor for the realm check
+   *
+   * @return future of the check
+   */
+  static CompletableFuture<Void> check(Subject subject, Permission permission, String id, Executor executor) {
+    Callable<Void> check = subject.associateWith(() -> {
+      DecisionCaches.checkPermission(null, subject, permission, id);
+      return null;
+    });
+    return CompletableFuture.supplyAsync(() -> call(check), executor);
+  }
+
+  /**
+   * Calls the callable and wraps checked exceptions into a {@link CompletionException}.
+   *
+   * @param callable callable to call
+   * @param <T> type of result
+   *
+   * @return result of the callable
+   */
+  static <T> T call(Callable<T> callable) {
+    try {
+      return callable.call();
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new CompletionException(ex);
+    }
+  }
+
+  /**
+   * Throws the cause of a failed future again, does nothing if the failure is {@code null}.
+   *
+   * @param failure failure of a future or {@code null}
+   */
+  static void rethrow(Throwable failure) {
+    if (failure == null) {
+      return;
+    }
+    Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new CompletionException(cause);
+  }
+}
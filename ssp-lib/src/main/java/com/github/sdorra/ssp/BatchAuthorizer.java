@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.mgt.AuthorizingSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.DelegatingSubject;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evaluates a list of permissions for a subject in one pass. If the subject is backed by the default
+ * {@link ModularRealmAuthorizer}, the whole list is passed to each realm, so that an
+ * {@link org.apache.shiro.realm.AuthorizingRealm} resolves the authorization info of the subject only once instead of
+ * once per permission. All other setups are delegated to {@link Subject#isPermitted(List)}. Permissions, which must be
+ * resolved by the realms, are passed as strings, see {@link RealmPermissions}.
+ *
+ * @author Sebastian Sdorra
+ */
+final class BatchAuthorizer {
+
+  private BatchAuthorizer() {
+  }
+
+  /**
+   * Returns a {@link BitSet} with a set bit for every permitted permission of the list.
+   *
+   * @param subject subject to check
+   * @param permissions permissions to check
+   *
+   * @return permitted indexes
+   */
+  static BitSet isPermitted(Subject subject, List<Permission> permissions) {
+    BitSet permitted = new BitSet(permissions.size());
+    if (permissions.isEmpty()) {
+      return permitted;
+    }
+    String[] strings = strings(subject, permissions);
+    Collection<Realm> realms = realms(subject);
+    if (realms == null) {
+      set(permitted, strings != null ? subject.isPermitted(strings) : subject.isPermitted(permissions));
+      return permitted;
+    }
+    PrincipalCollection principals = subject.getPrincipals();
+    if (principals == null || principals.isEmpty()) {
+      return permitted;
+    }
+    for (Realm realm : realms) {
+      if (realm instanceof Authorizer) {
+        Authorizer authorizer = (Authorizer) realm;
+        set(permitted, strings != null ? authorizer.isPermitted(principals, strings) : authorizer.isPermitted(principals, permissions));
+        if (permitted.cardinality() == permissions.size()) {
+          break;
+        }
+      }
+    }
+    return permitted;
+  }
+
+  /**
+   * Returns the permission strings, if the realms must resolve the permissions, otherwise {@code null}.
+   */
+  private static String[] strings(Subject subject, List<Permission> permissions) {
+    boolean string = false;
+    boolean typed = false;
+    for (Permission permission : permissions) {
+      string |= permission instanceof StringPermission;
+      typed |= permission instanceof TypedPermission;
+    }
+    if (!string && !(typed && !RealmPermissions.isTyped(subject))) {
+      return null;
+    }
+    String[] strings = new String[permissions.size()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = permissions.get(i).toString();
+    }
+    return strings;
+  }
+
+  private static Collection<Realm> realms(Subject subject) {
+    if (!(subject instanceof DelegatingSubject)) {
+      return null;
+    }
+    SecurityManager securityManager = ((DelegatingSubject) subject).getSecurityManager();
+    if (!(securityManager instanceof AuthorizingSecurityManager)) {
+      return null;
+    }
+    // subclasses could change the way the realm results are combined
+    Authorizer authorizer = ((AuthorizingSecurityManager) securityManager).getAuthorizer();
+    if (authorizer == null || authorizer.getClass() != ModularRealmAuthorizer.class) {
+      return null;
+    }
+    Collection<Realm> realms = ((ModularRealmAuthorizer) authorizer).getRealms();
+    if (realms == null || realms.isEmpty()) {
+      return null;
+    }
+    return realms;
+  }
+
+  private static void set(BitSet permitted, boolean[] result) {
+    for (int i = 0; i < result.length; i++) {
+      if (result[i]) {
+        permitted.set(i);
+      }
+    }
+  }
+}
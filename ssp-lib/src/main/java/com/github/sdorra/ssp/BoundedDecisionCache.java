@@ -0,0 +1,281 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link DecisionCache} with a maximum size and a time to live for every decision. Reads are lock-free, they only
+ * update the access frequency of the entry.
+ * <p>
+ * Entries are evicted with a clock, which is aware of the access frequency: every entry has a small counter, which is
+ * incremented on each hit. The clock passes over the entries in insertion order and removes the first entry without
+ * hits, entries with hits are moved to the end of the clock with a decremented counter. Decisions which were read only
+ * once, like those of a scan over many objects, are evicted before the frequently checked ones. Stale decisions of
+ * an older epoch are removed on read and are evicted first. Replaced, stale and expired entries are purged from the
+ * clock as soon as it holds more than twice the maximum size, so the clock is bounded like the cache.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class BoundedDecisionCache implements DecisionCache {
+
+  private static final int MAX_FREQUENCY = 3;
+
+  private final int maximumSize;
+  private final long timeToLive;
+
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger clockSize = new AtomicInteger();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  // reads look up the entry with a reused key of the thread, only stored entries get their own key
+  private final ThreadLocal<Key> probes = ThreadLocal.withInitial(Key::new);
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param maximumSize maximum number of cached decisions
+   * @param timeToLive time to live of a decision
+   * @param unit unit of the time to live
+   */
+  public BoundedDecisionCache(int maximumSize, long timeToLive, TimeUnit unit) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximum size must be greater than zero");
+    }
+    if (timeToLive <= 0) {
+      throw new IllegalArgumentException("time to live must be greater than zero");
+    }
+    this.maximumSize = maximumSize;
+    this.timeToLive = unit.toNanos(timeToLive);
+  }
+
+  @Override
+  public Boolean get(Object principal, TypedPermission permission, String id, boolean guarded, long epoch) {
+    Key probe = probes.get();
+    Entry entry = entries.get(probe.set(principal, permission.getType(), permission.getAction(), id, guarded));
+    // the probe must not keep the principal of the last check
+    probe.clear();
+    if (entry == null) {
+      return null;
+    }
+    if (entry.epoch != epoch || entry.isExpired(System.nanoTime())) {
+      entries.remove(entry.key, entry);
+      return null;
+    }
+    entry.hit();
+    return entry.permitted ? Boolean.TRUE : Boolean.FALSE;
+  }
+
+  @Override
+  public void put(Object principal, TypedPermission permission, String id, boolean guarded, boolean permitted, long epoch) {
+    Key key = new Key(principal, permission.getType(), permission.getAction(), id, guarded);
+    Entry entry = new Entry(key, permitted, epoch, System.nanoTime() + timeToLive);
+    entries.put(key, entry);
+    clock.offer(entry);
+    int entriesInClock = clockSize.incrementAndGet();
+    if (entries.size() > maximumSize || entriesInClock > maximumSize * 2L) {
+      evict();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      entries.clear();
+      while (clock.poll() != null) {
+        clockSize.decrementAndGet();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of cached decisions.
+   *
+   * @return number of cached decisions
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the number of entries in the clock, including replaced or removed entries which are not purged yet.
+   *
+   * @return number of entries in the clock
+   */
+  int clockSize() {
+    return clockSize.get();
+  }
+
+  private void evict() {
+    // only one thread has to evict, the size could exceed the maximum for a short time
+    if (!evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      long now = System.nanoTime();
+      if (clockSize.get() > maximumSize * 2L) {
+        purge(now);
+      }
+      while (entries.size() > maximumSize) {
+        Entry entry = clock.poll();
+        if (entry == null) {
+          break;
+        }
+        if (entries.get(entry.key) != entry) {
+          // replaced or removed entry
+          clockSize.decrementAndGet();
+          continue;
+        }
+        if (entry.frequency > 0 && !entry.isExpired(now)) {
+          entry.frequency--;
+          clock.offer(entry);
+        } else {
+          entries.remove(entry.key, entry);
+          clockSize.decrementAndGet();
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void purge(long now) {
+    Iterator<Entry> iterator = clock.iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entries.get(entry.key) != entry) {
+        iterator.remove();
+        clockSize.decrementAndGet();
+      } else if (entry.isExpired(now)) {
+        entries.remove(entry.key, entry);
+        iterator.remove();
+        clockSize.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Key of a decision. Keys of the map are never modified, only the probes of the threads are reused.
+   */
+  private static final class Key {
+
+    private Object principal;
+    private String type;
+    private String action;
+    private String id;
+    private boolean guarded;
+    private int hash;
+
+    private Key() {
+    }
+
+    private Key(Object principal, String type, String action, String id, boolean guarded) {
+      set(principal, type, action, id, guarded);
+    }
+
+    private Key set(Object principal, String type, String action, String id, boolean guarded) {
+      this.principal = principal;
+      this.type = type;
+      this.action = action;
+      this.id = id;
+      this.guarded = guarded;
+      // computed by hand, to avoid the varargs array and the boxing of Objects.hash
+      int h = Objects.hashCode(principal);
+      h = 31 * h + Objects.hashCode(type);
+      h = 31 * h + Objects.hashCode(action);
+      h = 31 * h + Objects.hashCode(id);
+      this.hash = 31 * h + (guarded ? 1231 : 1237);
+      return this;
+    }
+
+    private void clear() {
+      principal = null;
+      type = null;
+      action = null;
+      id = null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hash == other.hash
+        && guarded == other.guarded
+        && Objects.equals(id, other.id)
+        && Objects.equals(action, other.action)
+        && Objects.equals(type, other.type)
+        && Objects.equals(principal, other.principal);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class Entry {
+
+    private final Key key;
+    private final boolean permitted;
+    private final long epoch;
+    private final long expiresAt;
+
+    // racy updates are fine, the frequency is only a hint for the eviction
+    private volatile int frequency;
+
+    private Entry(Key key, boolean permitted, long epoch, long expiresAt) {
+      this.key = key;
+      this.permitted = permitted;
+      this.epoch = epoch;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired(long now) {
+      return now - expiresAt >= 0;
+    }
+
+    private void hit() {
+      if (frequency < MAX_FREQUENCY) {
+        frequency++;
+      }
+    }
+  }
+}
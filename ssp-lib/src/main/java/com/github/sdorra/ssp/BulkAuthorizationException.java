@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.UnauthorizedException;
+
+import java.util.BitSet;
+
+/**
+ * Thrown by the bulk checks of {@link PermissionActionCheck}, if the current user lacks the permission for at least
+ * one of the objects. The exception reports all denied objects at once.
+ *
+ * @author Sebastian Sdorra
+ */
+public class BulkAuthorizationException extends UnauthorizedException {
+
+  private static final long serialVersionUID = -2830619317062404582L;
+
+  private final BitSet denied;
+  private final int size;
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param permission checked permission
+   * @param denied indexes of the denied objects
+   * @param size number of checked objects
+   */
+  public BulkAuthorizationException(String permission, BitSet denied, int size) {
+    super("Subject does not have permission [" + permission + "] for " + denied.cardinality() + " of " + size + " objects");
+    this.denied = (BitSet) denied.clone();
+    this.size = size;
+  }
+
+  /**
+   * Returns the indexes of the denied objects, in the order in which the objects were passed to the check.
+   *
+   * @return denied indexes
+   */
+  public BitSet getDenied() {
+    return (BitSet) denied.clone();
+  }
+
+  /**
+   * Returns the number of checked objects.
+   *
+   * @return number of checked objects
+   */
+  public int getSize() {
+    return size;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.ssp.PermissionCheckMetrics.Outcome;
+import org.apache.shiro.authz.AuthorizationException;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Trace of a single permission check, which separates the time spent in the guard from the time spent in the shiro
+ * realm. Traces are created by {@link CheckTraces#start(org.apache.shiro.authz.Permission, String)} only if tracing
+ * is enabled, otherwise the checks do not create a trace at all.
+ *
+ * @author Sebastian Sdorra
+ */
+abstract class CheckTrace {
+
+  private final long start = System.nanoTime();
+  private long realmNanos;
+
+  /**
+   * Executes a traced permission check.
+   *
+   * @param guard guard which receives the realm check or {@code null} if the action is not guarded
+   * @param realm check of the shiro realm
+   *
+   * @return {@code true} if the permission is granted
+   */
+  final boolean isPermitted(Predicate<BooleanSupplier> guard, BooleanSupplier realm) {
+    BooleanSupplier timedRealm = () -> {
+      long realmStart = System.nanoTime();
+      try {
+        return realm.getAsBoolean();
+      } finally {
+        realmNanos += System.nanoTime() - realmStart;
+      }
+    };
+    boolean guarded = guard != null;
+    try {
+      boolean permitted = guarded ? guard.test(timedRealm) : timedRealm.getAsBoolean();
+      end(guarded, permitted ? Outcome.GRANTED : Outcome.DENIED);
+      return permitted;
+    } catch (RuntimeException ex) {
+      end(guarded, Outcome.EXCEPTION);
+      throw ex;
+    }
+  }
+
+  /**
+   * Executes a traced permission check, which throws an exception if the permission is not granted.
+   *
+   * @param guard guard which receives the realm check or {@code null} if the action is not guarded
+   * @param realm check of the shiro realm
+   */
+  final void check(Consumer<Runnable> guard, Runnable realm) {
+    Runnable timedRealm = () -> {
+      long realmStart = System.nanoTime();
+      try {
+        realm.run();
+      } finally {
+        realmNanos += System.nanoTime() - realmStart;
+      }
+    };
+    boolean guarded = guard != null;
+    try {
+      if (guarded) {
+        guard.accept(timedRealm);
+      } else {
+        timedRealm.run();
+      }
+      end(guarded, Outcome.GRANTED);
+    } catch (AuthorizationException ex) {
+      end(guarded, Outcome.DENIED);
+      throw ex;
+    } catch (RuntimeException ex) {
+      end(guarded, Outcome.EXCEPTION);
+      throw ex;
+    }
+  }
+
+  private void end(boolean guarded, Outcome outcome) {
+    long guardNanos = guarded ? System.nanoTime() - start - realmNanos : 0;
+    commit(outcome, guarded, guardNanos, realmNanos);
+  }
+
+  /**
+   * Publishes the trace.
+   *
+   * @param outcome outcome of the check
+   * @param guarded {@code true} if a guard was called
+   * @param guardNanos time spent in the guard, without the time of the realm check
+   * @param realmNanos time spent in the shiro realm
+   */
+  abstract void commit(Outcome outcome, boolean guarded, long guardNanos, long realmNanos);
+}
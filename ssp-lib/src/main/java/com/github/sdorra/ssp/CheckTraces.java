@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+
+/**
+ * Factory for {@link CheckTrace}s. Java 8 has no flight recorder api, so this version never traces. On Java 11 and
+ * newer the class is replaced by the version from {@code META-INF/versions/11} of the multi-release jar, which emits
+ * flight recorder events.
+ *
+ * @author Sebastian Sdorra
+ */
+final class CheckTraces {
+
+  private CheckTraces() {
+  }
+
+  /**
+   * Starts the trace of a permission check or returns {@code null}, if tracing is disabled.
+   *
+   * @param permission checked permission, for typed checks without id
+   * @param id id of the permission object or {@code null}
+   *
+   * @return trace or {@code null}
+   */
+  static CheckTrace start(Permission permission, String id) {
+    return null;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the {@link PermissionAction}s of custom actions. Lookups of known actions are lock-free, the number of
+ * interned actions is bounded. Actions which do not fit into the map anymore, are resolved on every call.
+ *
+ * @author Sebastian Sdorra
+ * @param <T> permission object type
+ */
+public final class CustomPermissionActions<T extends PermissionObject> {
+
+  /** default maximum number of interned actions */
+  public static final int DEFAULT_MAX_SIZE = 256;
+
+  private final String type;
+  private final PermissionGuard<T> guard;
+  private final int maxSize;
+
+  private final ConcurrentMap<String, PermissionAction<T>> actions = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a new instance for custom actions without guard.
+   *
+   * @param type type of permission
+   */
+  public CustomPermissionActions(String type) {
+    this(type, null, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Constructs a new instance with the default maximum size.
+   *
+   * @param type type of permission
+   * @param guard guard for custom actions
+   */
+  public CustomPermissionActions(String type, PermissionGuard<T> guard) {
+    this(type, guard, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param type type of permission
+   * @param guard guard for custom actions or {@code null}
+   * @param maxSize maximum number of interned actions
+   */
+  public CustomPermissionActions(String type, PermissionGuard<T> guard, int maxSize) {
+    this.type = type;
+    this.guard = guard;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the {@link PermissionAction} for the given custom action.
+   *
+   * @param action name of custom action
+   *
+   * @return permission action
+   */
+  public PermissionAction<T> get(String action) {
+    PermissionAction<T> permissionAction = actions.get(action);
+    if (permissionAction == null) {
+      permissionAction = guard != null ? new PermissionAction<>(type, action, guard) : new PermissionAction<>(type, action);
+      if (actions.size() < maxSize) {
+        PermissionAction<T> interned = actions.putIfAbsent(action, permissionAction);
+        if (interned != null) {
+          permissionAction = interned;
+        }
+      }
+    }
+    return permissionAction;
+  }
+
+  /**
+   * Returns the number of interned actions.
+   *
+   * @return number of interned actions
+   */
+  int size() {
+    return actions.size();
+  }
+}
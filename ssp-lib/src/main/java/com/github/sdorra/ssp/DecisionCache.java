@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+/**
+ * Cache for the decisions of permission checks. The cache sits between the generated checks and
+ * {@link org.apache.shiro.subject.Subject#isPermitted(org.apache.shiro.authz.Permission)} and is keyed by the
+ * primary principal of the subject, the type and action of the permission and the id of the permission object.
+ * Implementations are registered with {@link DecisionCaches#register(DecisionCache)}.
+ * <p>
+ * Results of guards are only cached, if the interceptor opts in with
+ * {@link PermissionActionCheckInterceptor#isCacheable()}. Those decisions are stored with {@code guarded} set to
+ * {@code true}, so that they never mix with the plain decisions of the realm.
+ * <p>
+ * Every decision is stored with the {@link PermissionEpochs epoch} under which it was computed. A decision, which was
+ * stored under another epoch than the requested one, is stale and must not be returned.
+ *
+ * @author Sebastian Sdorra
+ * @see BoundedDecisionCache
+ */
+public interface DecisionCache {
+
+  /**
+   * Returns the cached decision or {@code null}, if the cache has no valid decision for the key and the epoch.
+   *
+   * @param principal primary principal of the subject
+   * @param permission permission with type and action
+   * @param id id of the permission object or {@code null} for global permissions
+   * @param guarded {@code true} for decisions of a guard
+   * @param epoch current epoch of the subject and type
+   *
+   * @return cached decision or {@code null}
+   */
+  Boolean get(Object principal, TypedPermission permission, String id, boolean guarded, long epoch);
+
+  /**
+   * Stores a decision.
+   *
+   * @param principal primary principal of the subject
+   * @param permission permission with type and action
+   * @param id id of the permission object or {@code null} for global permissions
+   * @param guarded {@code true} for decisions of a guard
+   * @param permitted {@code true} if the permission was granted
+   * @param epoch epoch under which the decision was computed
+   */
+  void put(Object principal, TypedPermission permission, String id, boolean guarded, boolean permitted, long epoch);
+
+  /**
+   * Removes all decisions from the cache.
+   */
+  void clear();
+}
@@ -0,0 +1,278 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.subject.Subject;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Registry for the {@link DecisionCache} of the application and the checks against shiro, which consult the cache.
+ * The cache is opt-in, as long as no cache is registered every check is passed directly to the subject. The epoch of
+ * a decision is read before the realm is asked, so that a decision which overlaps with an invalidation is already
+ * stale when it is stored. An active {@link PermissionContext} is consulted before the cache, its decisions are valid
+ * until the context is closed.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class DecisionCaches {
+
+  /** reserved id for decisions of {@link #isPermittedForAny(PermissionContext, Subject, TypedPermission, BooleanSupplier)} */
+  static final String ANY_ID = "\u0000any";
+
+  private static volatile DecisionCache cache;
+
+  private DecisionCaches() {
+  }
+
+  /**
+   * Registers the decision cache. A previously registered cache is replaced.
+   *
+   * @param decisionCache cache to register
+   */
+  public static void register(DecisionCache decisionCache) {
+    cache = Objects.requireNonNull(decisionCache, "cache is required");
+  }
+
+  /**
+   * Removes the registered cache.
+   */
+  public static void unregister() {
+    cache = null;
+  }
+
+  /**
+   * Returns the registered cache or {@code null}.
+   *
+   * @return registered cache or {@code null}
+   */
+  static DecisionCache current() {
+    return cache;
+  }
+
+  /**
+   * Returns the decision of the realm for the permission.
+   *
+   * @param context active permission context or {@code null}
+   * @param subject subject to check
+   * @param permission typed permission without id or any other permission
+   * @param id id of the permission object or {@code null}
+   *
+   * @return {@code true} if the permission is granted
+   */
+  static boolean isPermitted(PermissionContext context, Subject subject, Permission permission, String id) {
+    if (context == null || !(permission instanceof TypedPermission)) {
+      return isPermitted(subject, permission, id);
+    }
+    TypedPermission typedPermission = (TypedPermission) permission;
+    Boolean memoized = context.get(typedPermission, id, false);
+    if (memoized != null) {
+      return memoized;
+    }
+    boolean permitted = isPermitted(subject, permission, id);
+    context.put(typedPermission, id, false, permitted);
+    return permitted;
+  }
+
+  private static boolean isPermitted(Subject subject, Permission permission, String id) {
+    DecisionCache decisionCache = cache;
+    Object principal = decisionCache != null ? subject.getPrincipal() : null;
+    if (principal == null || !(permission instanceof TypedPermission)) {
+      return RealmPermissions.isPermitted(subject, resolve(permission, id));
+    }
+    TypedPermission typedPermission = (TypedPermission) permission;
+    long epoch = PermissionEpochs.current(principal, typedPermission.getType());
+    Boolean cached = decisionCache.get(principal, typedPermission, id, false, epoch);
+    if (cached != null) {
+      return cached;
+    }
+    boolean permitted = RealmPermissions.isPermitted(subject, resolve(permission, id));
+    decisionCache.put(principal, typedPermission, id, false, permitted, epoch);
+    return permitted;
+  }
+
+  /**
+   * Checks the permission with the realm and throws an exception if it is not granted.
+   *
+   * @param context active permission context or {@code null}
+   * @param subject subject to check
+   * @param permission typed permission without id or any other permission
+   * @param id id of the permission object or {@code null}
+   */
+  static void checkPermission(PermissionContext context, Subject subject, Permission permission, String id) {
+    if (PermissionDeniedException.isEnabled() && subject.getPrincipal() != null) {
+      if (!isPermitted(context, subject, permission, id)) {
+        throw PermissionDecision.of(permission, id, false).exception();
+      }
+    } else if (!(permission instanceof TypedPermission) || (context == null && cache == null) || subject.getPrincipal() == null) {
+      RealmPermissions.checkPermission(subject, resolve(permission, id));
+    } else if (!isPermitted(context, subject, permission, id)) {
+      throw new UnauthorizedException("Subject does not have permission [" + resolve(permission, id) + "]");
+    }
+  }
+
+  /**
+   * Returns the decision of a guard, which is cached only if the interceptor opts in.
+   *
+   * @param context active permission context or {@code null}
+   * @param subject subject to check
+   * @param permission typed permission without id or any other permission
+   * @param id id of the permission object or {@code null}
+   * @param interceptor interceptor of the action
+   * @param guardedCheck check which calls the interceptor
+   *
+   * @return {@code true} if the permission is granted
+   */
+  static boolean isPermitted(PermissionContext context, Subject subject, Permission permission, String id,
+                             PermissionActionCheckInterceptor<?> interceptor, BooleanSupplier guardedCheck) {
+    if (!interceptor.isCacheable() || !(permission instanceof TypedPermission)) {
+      return guardedCheck.getAsBoolean();
+    }
+    TypedPermission typedPermission = (TypedPermission) permission;
+    if (context != null) {
+      Boolean memoized = context.get(typedPermission, id, true);
+      if (memoized != null) {
+        return memoized;
+      }
+    }
+    boolean permitted = isGuardPermitted(subject, typedPermission, id, guardedCheck);
+    if (context != null) {
+      context.put(typedPermission, id, true, permitted);
+    }
+    return permitted;
+  }
+
+  private static boolean isGuardPermitted(Subject subject, TypedPermission permission, String id, BooleanSupplier guardedCheck) {
+    return cached(subject, permission, id, true, guardedCheck);
+  }
+
+  private static boolean cached(Subject subject, TypedPermission permission, String id, boolean guarded, BooleanSupplier check) {
+    DecisionCache decisionCache = cache;
+    Object principal = decisionCache != null ? subject.getPrincipal() : null;
+    if (principal == null) {
+      return check.getAsBoolean();
+    }
+    long epoch = PermissionEpochs.current(principal, permission.getType());
+    Boolean cached = decisionCache.get(principal, permission, id, guarded, epoch);
+    if (cached != null) {
+      return cached;
+    }
+    boolean permitted = check.getAsBoolean();
+    decisionCache.put(principal, permission, id, guarded, permitted, epoch);
+    return permitted;
+  }
+
+  /**
+   * Returns {@code true} if the subject has the permission for any object. The decision is memoized in the context
+   * and cached with the reserved id {@link #ANY_ID}, so that it gets stale with the epoch of the subject and the type.
+   *
+   * @param context active permission context or {@code null}
+   * @param subject subject to check
+   * @param permission typed permission without id
+   * @param grantsCheck check of the grants of the subject
+   *
+   * @return {@code true} if the permission is granted for any object
+   */
+  static boolean isPermittedForAny(PermissionContext context, Subject subject, TypedPermission permission, BooleanSupplier grantsCheck) {
+    if (context != null) {
+      Boolean memoized = context.get(permission, ANY_ID, false);
+      if (memoized != null) {
+        return memoized;
+      }
+    }
+    boolean permitted = cached(subject, permission, ANY_ID, false, grantsCheck);
+    if (context != null) {
+      context.put(permission, ANY_ID, false, permitted);
+    }
+    return permitted;
+  }
+
+  /**
+   * Returns the decisions of the realm for a batch of ids. Only the ids without cached decision are passed to the
+   * realm.
+   *
+   * @param subject subject to check
+   * @param permission permission with type and action
+   * @param ids ids of the permission objects
+   *
+   * @return permitted indexes
+   */
+  static BitSet isPermitted(Subject subject, TypedPermission permission, List<String> ids) {
+    DecisionCache decisionCache = cache;
+    Object principal = decisionCache != null ? subject.getPrincipal() : null;
+    if (principal == null) {
+      return BatchAuthorizer.isPermitted(subject, permissions(permission, ids));
+    }
+    long epoch = PermissionEpochs.current(principal, permission.getType());
+    BitSet permitted = new BitSet(ids.size());
+    List<String> missing = new ArrayList<>();
+    List<Integer> missingIndexes = new ArrayList<>();
+    int index = 0;
+    for (String id : ids) {
+      String objectId = id == null ? "" : id;
+      Boolean cached = decisionCache.get(principal, permission, objectId, false, epoch);
+      if (cached == null) {
+        missing.add(objectId);
+        missingIndexes.add(index);
+      } else if (cached) {
+        permitted.set(index);
+      }
+      index++;
+    }
+    if (!missing.isEmpty()) {
+      BitSet resolved = BatchAuthorizer.isPermitted(subject, permissions(permission, missing));
+      for (int i = 0; i < missing.size(); i++) {
+        boolean granted = resolved.get(i);
+        decisionCache.put(principal, permission, missing.get(i), false, granted, epoch);
+        if (granted) {
+          permitted.set(missingIndexes.get(i));
+        }
+      }
+    }
+    return permitted;
+  }
+
+  private static List<Permission> permissions(TypedPermission permission, List<String> ids) {
+    List<Permission> permissions = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      permissions.add(permission.withId(id));
+    }
+    return permissions;
+  }
+
+  private static Permission resolve(Permission permission, String id) {
+    if (id == null) {
+      return permission;
+    }
+    return ((TypedPermission) permission).withId(id);
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.PermissionResolver;
+import org.apache.shiro.authz.permission.RolePermissionResolver;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.mgt.RealmSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.DelegatingSubject;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads the granted permissions of a subject from the realms of the security manager. Shiro has no public api for
+ * the grants of a subject, so the protected {@code getAuthorizationInfo} method of {@link AuthorizingRealm} is
+ * called, which uses the authorization cache of the realm.
+ * <p>
+ * The grants describe the decisions of a realm only, if the realm decides with the implementation of
+ * {@link AuthorizingRealm}. Realms which override {@code isPermitted}, e.g. for deny rules or to delegate to another
+ * service, could decide differently, so their grants are unknown.
+ *
+ * @author Sebastian Sdorra
+ */
+final class Grants {
+
+  private static final Method GET_AUTHORIZATION_INFO = authorizationInfoMethod();
+
+  private static final ClassValue<Boolean> DECIDES_BY_GRANTS = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return decidesByGrants(type);
+    }
+  };
+
+  private Grants() {
+  }
+
+  private static Method authorizationInfoMethod() {
+    try {
+      Method method = AuthorizingRealm.class.getDeclaredMethod("getAuthorizationInfo", PrincipalCollection.class);
+      method.setAccessible(true);
+      return method;
+    } catch (NoSuchMethodException | RuntimeException ex) {
+      return null;
+    }
+  }
+
+  private static boolean decidesByGrants(Class<?> realmClass) {
+    try {
+      Method isPermitted = realmClass.getMethod("isPermitted", PrincipalCollection.class, Permission.class);
+      return isPermitted.getDeclaringClass() == AuthorizingRealm.class
+        && declaringClass(realmClass, "isPermitted", Permission.class, AuthorizationInfo.class) == AuthorizingRealm.class;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
+  private static Class<?> declaringClass(Class<?> type, String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+    // getMethod finds only public methods, so protected methods are searched along the hierarchy
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      try {
+        return c.getDeclaredMethod(name, parameterTypes).getDeclaringClass();
+      } catch (NoSuchMethodException ex) {
+        // continue with the super class
+      }
+    }
+    throw new NoSuchMethodException(name);
+  }
+
+  /**
+   * Returns the granted permissions of the subject or {@code null}, if the grants could not be read from all realms.
+   *
+   * @param subject subject
+   *
+   * @return granted permissions or {@code null}
+   */
+  static List<Permission> of(Subject subject) {
+    PrincipalCollection principals = subject.getPrincipals();
+    if (principals == null || principals.isEmpty()) {
+      return new ArrayList<>();
+    }
+    if (!RealmPermissions.isTyped(subject)) {
+      // the grants are compared with permissions of another resolver
+      return null;
+    }
+    SecurityManager securityManager = subject instanceof DelegatingSubject
+      ? ((DelegatingSubject) subject).getSecurityManager() : SecurityUtils.getSecurityManager();
+    if (!(securityManager instanceof RealmSecurityManager) || GET_AUTHORIZATION_INFO == null) {
+      return null;
+    }
+    Collection<Realm> realms = ((RealmSecurityManager) securityManager).getRealms();
+    if (realms == null) {
+      return null;
+    }
+    List<Permission> grants = new ArrayList<>();
+    for (Realm realm : realms) {
+      if (realm instanceof AuthorizingRealm) {
+        if (!DECIDES_BY_GRANTS.get(realm.getClass())) {
+          // the realm overrides the decision of its grants
+          return null;
+        }
+        AuthorizingRealm authorizingRealm = (AuthorizingRealm) realm;
+        collect(grants, authorizingRealm, authorizationInfo(authorizingRealm, principals));
+      } else if (realm instanceof Authorizer) {
+        // the realm decides without authorization info
+        return null;
+      }
+    }
+    return grants;
+  }
+
+  private static AuthorizationInfo authorizationInfo(AuthorizingRealm realm, PrincipalCollection principals) {
+    try {
+      return (AuthorizationInfo) GET_AUTHORIZATION_INFO.invoke(realm, principals);
+    } catch (InvocationTargetException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("failed to read authorization info", cause);
+    } catch (IllegalAccessException ex) {
+      throw new IllegalStateException("failed to read authorization info", ex);
+    }
+  }
+
+  private static void collect(List<Permission> grants, AuthorizingRealm realm, AuthorizationInfo info) {
+    if (info == null) {
+      return;
+    }
+    Collection<String> stringPermissions = info.getStringPermissions();
+    if (stringPermissions != null) {
+      PermissionResolver resolver = realm.getPermissionResolver();
+      for (String permission : stringPermissions) {
+        grants.add(resolve(resolver, permission));
+      }
+    }
+    Collection<Permission> objectPermissions = info.getObjectPermissions();
+    if (objectPermissions != null) {
+      for (Permission permission : objectPermissions) {
+        if (permission instanceof PermissionIndex) {
+          grants.addAll(((PermissionIndex) permission).getPermissions());
+        } else {
+          grants.add(permission);
+        }
+      }
+    }
+    RolePermissionResolver roleResolver = realm.getRolePermissionResolver();
+    Collection<String> roles = info.getRoles();
+    if (roleResolver != null && roles != null) {
+      for (String role : roles) {
+        Collection<Permission> permissions = roleResolver.resolvePermissionsInRole(role);
+        if (permissions != null) {
+          grants.addAll(permissions);
+        }
+      }
+    }
+  }
+
+  private static Permission resolve(PermissionResolver resolver, String permission) {
+    Permission resolved = resolver.resolvePermission(permission);
+    if (resolved != null && resolved.getClass() == WildcardPermission.class) {
+      // the resolver is the default one, see RealmPermissions, the grant keeps the ids in the case of the string
+      return new WildcardGrant(permission);
+    }
+    return resolved;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link InvalidationBus} for a single process. Invalidations are applied to the {@link PermissionEpochs} first and
+ * are then passed to the subscribed listeners on the publishing thread.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class InMemoryInvalidationBus implements InvalidationBus {
+
+  private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(Invalidation invalidation) {
+    PermissionEpochs.apply(invalidation);
+    for (InvalidationListener listener : listeners) {
+      listener.onInvalidation(invalidation);
+    }
+  }
+
+  @Override
+  public void subscribe(InvalidationListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void unsubscribe(InvalidationListener listener) {
+    listeners.remove(listener);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.PermissionResolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link AuthorizationInfo} which compiles all string and object permissions of another {@link AuthorizationInfo}
+ * into a single {@link PermissionIndex}. The index is exposed as the only object permission, so that
+ * {@link org.apache.shiro.realm.AuthorizingRealm#isPermitted} has to check one permission instead of every grant.
+ * A realm can use the index by wrapping the result of {@code doGetAuthorizationInfo}:
+ * <pre>
+ * protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+ *   return new IndexedAuthorizationInfo(loadAuthorizationInfo(principals), getPermissionResolver());
+ * }
+ * </pre>
+ * If the realm uses an authorization cache, the index is cached with the authorization info. The info records the
+ * {@link PermissionEpochs epoch} of the subject, a realm can drop a cached info as soon as it is {@link #isStale()}:
+ * <pre>
+ * protected AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+ *   AuthorizationInfo info = super.getAuthorizationInfo(principals);
+ *   if (info instanceof IndexedAuthorizationInfo &amp;&amp; ((IndexedAuthorizationInfo) info).isStale()) {
+ *     clearCachedAuthorizationInfo(principals);
+ *     info = super.getAuthorizationInfo(principals);
+ *   }
+ *   return info;
+ * }
+ * </pre>
+ * Permissions of roles,
+ * which are resolved by a {@link org.apache.shiro.authz.permission.RolePermissionResolver}, are not part of the
+ * index.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class IndexedAuthorizationInfo implements AuthorizationInfo {
+
+  private static final long serialVersionUID = 3870236207413468329L;
+
+  private final Collection<String> roles;
+  private final PermissionIndex index;
+  private final Object principal;
+  private final long epoch;
+
+  /**
+   * Constructs a new instance for an unknown subject. The index gets stale only with invalidations of all subjects
+   * or of types.
+   *
+   * @param info authorization info with the grants of the subject
+   * @param resolver resolver for the string permissions of the authorization info
+   */
+  public IndexedAuthorizationInfo(AuthorizationInfo info, PermissionResolver resolver) {
+    this(info, resolver, null);
+  }
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param info authorization info with the grants of the subject
+   * @param resolver resolver for the string permissions of the authorization info
+   * @param principal primary principal of the subject or {@code null}
+   */
+  public IndexedAuthorizationInfo(AuthorizationInfo info, PermissionResolver resolver, Object principal) {
+    // read the epoch first, an invalidation during the compilation makes the index stale
+    this.epoch = PermissionEpochs.current(principal);
+    this.principal = principal;
+    this.roles = info.getRoles();
+    this.index = new PermissionIndex(permissions(info, resolver));
+  }
+
+  private static List<Permission> permissions(AuthorizationInfo info, PermissionResolver resolver) {
+    List<Permission> permissions = new ArrayList<>();
+    Collection<String> stringPermissions = info.getStringPermissions();
+    if (stringPermissions != null) {
+      for (String permission : stringPermissions) {
+        permissions.add(resolver.resolvePermission(permission));
+      }
+    }
+    Collection<Permission> objectPermissions = info.getObjectPermissions();
+    if (objectPermissions != null) {
+      permissions.addAll(objectPermissions);
+    }
+    return permissions;
+  }
+
+  /**
+   * Returns the compiled index of all permissions.
+   *
+   * @return permission index
+   */
+  public PermissionIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Returns {@code true} if the grants of the subject were invalidated after the index was compiled.
+   *
+   * @return {@code true} if the index is stale
+   */
+  public boolean isStale() {
+    return PermissionEpochs.current(principal) != epoch;
+  }
+
+  @Override
+  public Collection<String> getRoles() {
+    return roles;
+  }
+
+  @Override
+  public Collection<String> getStringPermissions() {
+    // string permissions are resolved and compiled into the index
+    return Collections.emptySet();
+  }
+
+  @Override
+  public Collection<Permission> getObjectPermissions() {
+    return Collections.singleton(index);
+  }
+}
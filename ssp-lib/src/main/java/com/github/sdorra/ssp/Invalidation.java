@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Invalidation of grants, which is published on an {@link InvalidationBus}. Invalidations received from other nodes
+ * are marked as remote, so that transports do not send them back.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class Invalidation implements Serializable {
+
+  private static final long serialVersionUID = -2419357461316436307L;
+
+  /**
+   * Scope of an invalidation.
+   */
+  public enum Scope {
+    /** grants of all subjects */
+    ALL,
+    /** grants of a single subject */
+    SUBJECT,
+    /** grants of a single type */
+    TYPE
+  }
+
+  private final Scope scope;
+  private final Serializable value;
+  private final boolean remote;
+
+  private Invalidation(Scope scope, Serializable value, boolean remote) {
+    this.scope = scope;
+    this.value = value;
+    this.remote = remote;
+  }
+
+  /**
+   * Creates an invalidation for the grants of all subjects.
+   *
+   * @return invalidation
+   */
+  public static Invalidation all() {
+    return new Invalidation(Scope.ALL, null, false);
+  }
+
+  /**
+   * Creates an invalidation for the grants of a single subject.
+   *
+   * @param principal primary principal of the subject
+   *
+   * @return invalidation
+   */
+  public static Invalidation subject(Serializable principal) {
+    return new Invalidation(Scope.SUBJECT, Objects.requireNonNull(principal, "principal is required"), false);
+  }
+
+  /**
+   * Creates an invalidation for the grants of a single type.
+   *
+   * @param type type of permission
+   *
+   * @return invalidation
+   */
+  public static Invalidation type(String type) {
+    return new Invalidation(Scope.TYPE, Objects.requireNonNull(type, "type is required"), false);
+  }
+
+  /**
+   * Returns a copy of the invalidation, which is marked as received from another node.
+   *
+   * @return remote invalidation
+   */
+  public Invalidation asRemote() {
+    return new Invalidation(scope, value, true);
+  }
+
+  /**
+   * Returns the scope of the invalidation.
+   *
+   * @return scope
+   */
+  public Scope getScope() {
+    return scope;
+  }
+
+  /**
+   * Returns the principal or the type of the invalidation or {@code null} for {@link Scope#ALL}.
+   *
+   * @return principal, type or {@code null}
+   */
+  public Serializable getValue() {
+    return value;
+  }
+
+  /**
+   * Returns {@code true} if the invalidation was received from another node.
+   *
+   * @return {@code true} for remote invalidations
+   */
+  public boolean isRemote() {
+    return remote;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Invalidation)) {
+      return false;
+    }
+    Invalidation other = (Invalidation) obj;
+    return scope == other.scope && remote == other.remote && Objects.equals(value, other.value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(scope, value, remote);
+  }
+
+  @Override
+  public String toString() {
+    return "Invalidation{scope=" + scope + ", value=" + value + ", remote=" + remote + "}";
+  }
+}
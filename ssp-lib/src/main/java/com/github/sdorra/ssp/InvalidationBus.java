@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+/**
+ * Bus for the invalidation of grants. Invalidations published on the bus are applied to the
+ * {@link PermissionEpochs} of the node, so that stale decisions are recomputed without flushing the whole cache.
+ * Transports to other nodes subscribe to the bus, send every local invalidation and publish received invalidations
+ * with {@link Invalidation#asRemote()}.
+ *
+ * @author Sebastian Sdorra
+ * @see InMemoryInvalidationBus
+ */
+public interface InvalidationBus {
+
+  /**
+   * Publishes the invalidation to all listeners.
+   *
+   * @param invalidation invalidation to publish
+   */
+  void publish(Invalidation invalidation);
+
+  /**
+   * Subscribes the listener to all invalidations published on this bus.
+   *
+   * @param listener listener to subscribe
+   */
+  void subscribe(InvalidationListener listener);
+
+  /**
+   * Removes the listener from the bus.
+   *
+   * @param listener listener to remove
+   */
+  void unsubscribe(InvalidationListener listener);
+}
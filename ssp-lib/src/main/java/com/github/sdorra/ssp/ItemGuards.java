@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.subject.Subject;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Calls the guards of checks for a permission object. A guard, which overrides the method for the object, is asked
+ * first and its delegate asks the guard for the id of the object, so that guards of both variants are applied. The
+ * default method for the object delegates already to the id variant and is called alone.
+ *
+ * @author Sebastian Sdorra
+ */
+final class ItemGuards {
+
+  private static final ClassValue<Boolean> OVERRIDES_CHECK = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return overrides(type, "check", Runnable.class);
+    }
+  };
+
+  private static final ClassValue<Boolean> OVERRIDES_IS_PERMITTED = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return overrides(type, "isPermitted", BooleanSupplier.class);
+    }
+  };
+
+  private ItemGuards() {
+  }
+
+  private static boolean overrides(Class<?> type, String name, Class<?> delegateType) {
+    try {
+      return type.getMethod(name, Subject.class, PermissionObject.class, delegateType).getDeclaringClass()
+        != PermissionActionCheckInterceptor.class;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Calls the guard for the object and the guard for the id of the object.
+   *
+   * @param interceptor interceptor of the action
+   * @param subject subject to check
+   * @param item permission object
+   * @param delegate check of the realm
+   * @param <T> type of permission object
+   */
+  static <T extends PermissionObject> void check(PermissionActionCheckInterceptor<T> interceptor, Subject subject,
+                                                 T item, Runnable delegate) {
+    if (OVERRIDES_CHECK.get(interceptor.getClass())) {
+      interceptor.check(subject, item, () -> interceptor.check(subject, item.getId(), delegate));
+    } else {
+      interceptor.check(subject, item, delegate);
+    }
+  }
+
+  /**
+   * Asks the guard for the object and the guard for the id of the object.
+   *
+   * @param interceptor interceptor of the action
+   * @param subject subject to check
+   * @param item permission object
+   * @param delegate check of the realm
+   * @param <T> type of permission object
+   *
+   * @return {@code true} if the permission is granted
+   */
+  static <T extends PermissionObject> boolean isPermitted(PermissionActionCheckInterceptor<T> interceptor,
+                                                          Subject subject, T item, BooleanSupplier delegate) {
+    if (OVERRIDES_IS_PERMITTED.get(interceptor.getClass())) {
+      return interceptor.isPermitted(subject, item, () -> interceptor.isPermitted(subject, item.getId(), delegate));
+    }
+    return interceptor.isPermitted(subject, item, delegate);
+  }
+}
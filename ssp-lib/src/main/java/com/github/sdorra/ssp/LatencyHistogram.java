@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with exponential buckets. The upper bound of each bucket is twice the bound of
+ * its predecessor, starting with {@link #MIN_BOUND} nanoseconds. All durations above the largest bound are counted
+ * by the last bucket. Every bucket is a striped {@link LongAdder}, so concurrent records do not contend.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class LatencyHistogram {
+
+  /** upper bound of the first bucket in nanoseconds */
+  public static final long MIN_BOUND = 64;
+
+  /** number of buckets, including the overflow bucket */
+  public static final int BUCKETS = 32;
+
+  private static final int MIN_SHIFT = Long.numberOfTrailingZeros(MIN_BOUND);
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * Constructs a new empty histogram.
+   */
+  public LatencyHistogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a single duration.
+   *
+   * @param nanos duration in nanoseconds
+   */
+  public void record(long nanos) {
+    record(nanos, 1);
+  }
+
+  /**
+   * Records the same duration multiple times.
+   *
+   * @param nanos duration in nanoseconds
+   * @param count number of records
+   */
+  public void record(long nanos, long count) {
+    buckets[bucket(nanos)].add(count);
+    sum.add(Math.max(nanos, 0) * count);
+  }
+
+  /**
+   * Returns the number of records in the bucket with the given index.
+   *
+   * @param index index of bucket
+   *
+   * @return number of records
+   */
+  public long getBucketCount(int index) {
+    return buckets[index].sum();
+  }
+
+  /**
+   * Returns the inclusive upper bound of the bucket with the given index in nanoseconds or {@link Long#MAX_VALUE}
+   * for the last bucket.
+   *
+   * @param index index of bucket
+   *
+   * @return upper bound in nanoseconds
+   */
+  public static long getBucketBound(int index) {
+    if (index >= BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    return MIN_BOUND << index;
+  }
+
+  /**
+   * Returns the number of all records.
+   *
+   * @return number of records
+   */
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sum of all recorded durations in nanoseconds.
+   *
+   * @return sum of durations
+   */
+  public long getSum() {
+    return sum.sum();
+  }
+
+  static int bucket(long nanos) {
+    if (nanos <= MIN_BOUND) {
+      return 0;
+    }
+    int bucket = 64 - Long.numberOfLeadingZeros(nanos - 1) - MIN_SHIFT;
+    return Math.min(bucket, BUCKETS - 1);
+  }
+}
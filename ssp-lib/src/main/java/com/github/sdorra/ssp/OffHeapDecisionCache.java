@@ -0,0 +1,445 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link DecisionCache} which stores the decisions outside of the java heap in direct {@link ByteBuffer}s. The cache
+ * is meant for millions of decisions, which would put too much pressure on the garbage collector as map entries.
+ * <p>
+ * Every decision is stored in a slot of 40 bytes: the 128-bit hash of principal, type, action, id and guard as key and
+ * check, the epoch, the expiry in milliseconds and the flags for the decision and the clock. The hash is a SipHash
+ * with a random seed of the instance, so the hashes of ids can not be computed in advance to find an id, which shares
+ * the slot of a permitted one. Both halves of the hash have to match to find a decision. The principal is part of the
+ * key by its class, its hash code and its string representation, so principals have to implement {@code hashCode}
+ * and {@code toString} consistent with {@code equals}, like strings or numbers do.
+ * <p>
+ * The slots are split into segments with open addressing and linear probing. Lookups use optimistic reads of a
+ * {@link StampedLock} and only fall back to a read lock, if a writer modified the segment concurrently. Removed slots
+ * are filled by shifting the following slots back, so the tables never fill up with tombstones. If a segment is full,
+ * a clock evicts the first decision, which was not read since the last pass of the clock hand.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class OffHeapDecisionCache implements DecisionCache {
+
+  private static final int SEGMENT_BITS = 6;
+  private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+  private static final int SLOT_SIZE = 40;
+  private static final int KEY = 0;
+  private static final int CHECK = 8;
+  private static final int EPOCH = 16;
+  private static final int EXPIRY = 24;
+  private static final int FLAGS = 32;
+
+  private static final int PERMITTED = 1;
+  private static final int REFERENCED = 2;
+
+  private static final long EMPTY = 0L;
+  private static final int MISS = -1;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final long timeToLive;
+  private final long base = System.nanoTime();
+  private final long seed0;
+  private final long seed1;
+
+  /**
+   * Constructs a new instance. The memory for all decisions is allocated immediately.
+   *
+   * @param maximumSize maximum number of cached decisions
+   * @param timeToLive time to live of a decision, at least one millisecond
+   * @param unit unit of the time to live
+   */
+  public OffHeapDecisionCache(int maximumSize, long timeToLive, TimeUnit unit) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximum size must be greater than zero");
+    }
+    long millis = unit.toMillis(timeToLive);
+    if (millis <= 0) {
+      throw new IllegalArgumentException("time to live must be at least one millisecond");
+    }
+    this.timeToLive = millis;
+    SecureRandom random = new SecureRandom();
+    this.seed0 = random.nextLong();
+    this.seed1 = random.nextLong();
+    int maxEntries = Math.max(1, (maximumSize + SEGMENTS - 1) / SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(maxEntries);
+    }
+  }
+
+  @Override
+  public Boolean get(Object principal, TypedPermission permission, String id, boolean guarded, long epoch) {
+    KeyHash hash = hash(principal, permission, id, guarded);
+    int decision = segment(hash.key).get(hash.key, hash.check, epoch, now());
+    if (decision == MISS) {
+      return null;
+    }
+    return decision == PERMITTED ? Boolean.TRUE : Boolean.FALSE;
+  }
+
+  @Override
+  public void put(Object principal, TypedPermission permission, String id, boolean guarded, boolean permitted, long epoch) {
+    KeyHash hash = hash(principal, permission, id, guarded);
+    long now = now();
+    // saturate instead of overflow for very long times to live
+    long expiry = timeToLive > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeToLive;
+    segment(hash.key).put(hash.key, hash.check, epoch, expiry, permitted ? PERMITTED : 0);
+  }
+
+  @Override
+  public void clear() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  /**
+   * Returns the number of cached decisions, including expired and stale decisions which are not evicted yet.
+   *
+   * @return number of cached decisions
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  private Segment segment(long key) {
+    return segments[(int) (key >>> (64 - SEGMENT_BITS))];
+  }
+
+  private long now() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - base);
+  }
+
+  /**
+   * Returns the seeded 128-bit hash of the key of a decision.
+   *
+   * @param principal principal of the subject
+   * @param permission permission with type and action
+   * @param id id of the permission object or {@code null}
+   * @param guarded {@code true} for decisions of a guard
+   *
+   * @return hash with key and check
+   */
+  KeyHash hash(Object principal, TypedPermission permission, String id, boolean guarded) {
+    KeyHash hash = new KeyHash(seed0, seed1);
+    if (principal == null) {
+      hash.word(-1L);
+    } else {
+      hash.string(principal.getClass().getName());
+      hash.word(principal.hashCode());
+      hash.string(principal.toString());
+    }
+    hash.string(permission.getType());
+    hash.string(permission.getAction());
+    hash.string(id);
+    hash.word(guarded ? 1L : 0L);
+    hash.finish();
+    return hash;
+  }
+
+  private static boolean isExpired(long expiry, long now) {
+    return now >= expiry;
+  }
+
+  /**
+   * SipHash-2-4 with 128-bit output over the parts of a key. Every string is prefixed with its length, so that
+   * e.g. "ab" + "c" and "a" + "bc" have different hashes.
+   */
+  static final class KeyHash {
+
+    private long v0;
+    private long v1;
+    private long v2;
+    private long v3;
+    private int words;
+
+    long key;
+    long check;
+
+    private KeyHash(long k0, long k1) {
+      v0 = k0 ^ 0x736f6d6570736575L;
+      v1 = k1 ^ 0x646f72616e646f6dL ^ 0xeeL;
+      v2 = k0 ^ 0x6c7967656e657261L;
+      v3 = k1 ^ 0x7465646279746573L;
+    }
+
+    private void string(String value) {
+      if (value == null) {
+        word(-1L);
+        return;
+      }
+      int length = value.length();
+      word(length);
+      int i = 0;
+      for (; i + 4 <= length; i += 4) {
+        word(value.charAt(i)
+          | (long) value.charAt(i + 1) << 16
+          | (long) value.charAt(i + 2) << 32
+          | (long) value.charAt(i + 3) << 48
+        );
+      }
+      if (i < length) {
+        long word = 0L;
+        for (int shift = 0; i < length; i++, shift += 16) {
+          word |= (long) value.charAt(i) << shift;
+        }
+        word(word);
+      }
+    }
+
+    private void word(long word) {
+      v3 ^= word;
+      round();
+      round();
+      v0 ^= word;
+      words++;
+    }
+
+    private void finish() {
+      long last = ((long) words * 8) << 56;
+      v3 ^= last;
+      round();
+      round();
+      v0 ^= last;
+      v2 ^= 0xeeL;
+      round();
+      round();
+      round();
+      round();
+      long first = v0 ^ v1 ^ v2 ^ v3;
+      v1 ^= 0xddL;
+      round();
+      round();
+      round();
+      round();
+      key = first == EMPTY ? 1L : first;
+      check = v0 ^ v1 ^ v2 ^ v3;
+    }
+
+    private void round() {
+      v0 += v1;
+      v1 = Long.rotateLeft(v1, 13);
+      v1 ^= v0;
+      v0 = Long.rotateLeft(v0, 32);
+      v2 += v3;
+      v3 = Long.rotateLeft(v3, 16);
+      v3 ^= v2;
+      v0 += v3;
+      v3 = Long.rotateLeft(v3, 21);
+      v3 ^= v0;
+      v2 += v1;
+      v1 = Long.rotateLeft(v1, 17);
+      v1 ^= v2;
+      v2 = Long.rotateLeft(v2, 32);
+    }
+  }
+
+  private static final class Segment {
+
+    private final StampedLock lock = new StampedLock();
+    private final ByteBuffer slots;
+    private final int mask;
+    private final int maxEntries;
+
+    private int size;
+    private int hand;
+
+    private Segment(int maxEntries) {
+      // keep the load factor at most 0.75, to keep the probe sequences short and at least one slot empty
+      int capacity = Integer.highestOneBit((maxEntries + maxEntries / 3 + 1) * 2 - 1);
+      this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+      this.mask = capacity - 1;
+      this.maxEntries = maxEntries;
+    }
+
+    private int get(long key, long check, long epoch, long now) {
+      long stamp = lock.tryOptimisticRead();
+      int index = find(key, check);
+      int decision = decision(index, epoch, now);
+      if (!lock.validate(stamp)) {
+        stamp = lock.readLock();
+        try {
+          index = find(key, check);
+          decision = decision(index, epoch, now);
+        } finally {
+          lock.unlockRead(stamp);
+        }
+      }
+      if (decision == MISS) {
+        return MISS;
+      }
+      if ((decision & REFERENCED) == 0) {
+        reference(key, check);
+      }
+      return decision & PERMITTED;
+    }
+
+    private int decision(int index, long epoch, long now) {
+      if (index < 0) {
+        return MISS;
+      }
+      int offset = index * SLOT_SIZE;
+      if (slots.getLong(offset + EPOCH) != epoch || isExpired(slots.getLong(offset + EXPIRY), now)) {
+        return MISS;
+      }
+      return slots.getInt(offset + FLAGS);
+    }
+
+    private void reference(long key, long check) {
+      // the reference is only a hint for the clock, skip it if another thread holds the lock
+      long stamp = lock.tryWriteLock();
+      if (stamp != 0L) {
+        try {
+          int index = find(key, check);
+          if (index >= 0) {
+            int offset = index * SLOT_SIZE + FLAGS;
+            slots.putInt(offset, slots.getInt(offset) | REFERENCED);
+          }
+        } finally {
+          lock.unlockWrite(stamp);
+        }
+      }
+    }
+
+    private void put(long key, long check, long epoch, long expiry, int flags) {
+      long stamp = lock.writeLock();
+      try {
+        int index = find(key, check);
+        if (index < 0) {
+          if (size >= maxEntries) {
+            evict();
+          }
+          index = (int) key & mask;
+          while (slots.getLong(index * SLOT_SIZE + KEY) != EMPTY) {
+            index = (index + 1) & mask;
+          }
+          size++;
+        }
+        int offset = index * SLOT_SIZE;
+        slots.putLong(offset + KEY, key);
+        slots.putLong(offset + CHECK, check);
+        slots.putLong(offset + EPOCH, epoch);
+        slots.putLong(offset + EXPIRY, expiry);
+        slots.putInt(offset + FLAGS, flags);
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    private int find(long key, long check) {
+      int index = (int) key & mask;
+      // the probe is bounded, an optimistic read could observe a table in the middle of a modification
+      for (int i = 0; i <= mask; i++) {
+        long current = slots.getLong(index * SLOT_SIZE + KEY);
+        if (current == key && slots.getLong(index * SLOT_SIZE + CHECK) == check) {
+          return index;
+        } else if (current == EMPTY) {
+          return -1;
+        }
+        index = (index + 1) & mask;
+      }
+      return -1;
+    }
+
+    private void evict() {
+      while (true) {
+        int offset = hand * SLOT_SIZE;
+        if (slots.getLong(offset + KEY) != EMPTY) {
+          int flags = slots.getInt(offset + FLAGS);
+          if ((flags & REFERENCED) == 0) {
+            remove(hand);
+            return;
+          }
+          slots.putInt(offset + FLAGS, flags & ~REFERENCED);
+        }
+        hand = (hand + 1) & mask;
+      }
+    }
+
+    private void remove(int index) {
+      int hole = index;
+      int next = (hole + 1) & mask;
+      while (true) {
+        long key = slots.getLong(next * SLOT_SIZE + KEY);
+        if (key == EMPTY) {
+          break;
+        }
+        int home = (int) key & mask;
+        // the slot could be moved into the hole, if the hole is between its home and its current position
+        if (((next - home) & mask) >= ((next - hole) & mask)) {
+          copy(next, hole);
+          hole = next;
+        }
+        next = (next + 1) & mask;
+      }
+      slots.putLong(hole * SLOT_SIZE + KEY, EMPTY);
+      size--;
+    }
+
+    private void copy(int from, int to) {
+      int source = from * SLOT_SIZE;
+      int target = to * SLOT_SIZE;
+      slots.putLong(target + KEY, slots.getLong(source + KEY));
+      slots.putLong(target + CHECK, slots.getLong(source + CHECK));
+      slots.putLong(target + EPOCH, slots.getLong(source + EPOCH));
+      slots.putLong(target + EXPIRY, slots.getLong(source + EXPIRY));
+      slots.putInt(target + FLAGS, slots.getInt(source + FLAGS));
+    }
+
+    private void clear() {
+      long stamp = lock.writeLock();
+      try {
+        for (int index = 0; index <= mask; index++) {
+          slots.putLong(index * SLOT_SIZE + KEY, EMPTY);
+        }
+        size = 0;
+        hand = 0;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    private int size() {
+      long stamp = lock.readLock();
+      try {
+        return size;
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+  }
+}
@@ -1,8 +1,30 @@
 package com.github.sdorra.ssp;
 
+/**
+ * Guard which does not intercept any permission check. The generated classes use it for every action without a
+ * registered guard, checks of the shared interceptor of this guard are passed directly to shiro.
+ *
+ * @param <T> The permission object this guard is used for.
+ */
 public class PassThroughPermissionGuard<T extends PermissionObject> implements PermissionGuard<T> {
+
+    private static final PermissionActionCheckInterceptor<PermissionObject> INTERCEPTOR =
+            new PermissionActionCheckInterceptor<PermissionObject>() {};
+
     @Override
+    @SuppressWarnings("unchecked")
     public PermissionActionCheckInterceptor<T> intercept(String permission) {
-        return new PermissionActionCheckInterceptor<T>() {};
+        return (PermissionActionCheckInterceptor<T>) INTERCEPTOR;
+    }
+
+    /**
+     * Returns {@code null} for the interceptor of this guard, which allows callers to skip the interception.
+     *
+     * @param interceptor interceptor
+     * @param <T> permission object type
+     * @return the given interceptor or {@code null}
+     */
+    static <T extends PermissionObject> PermissionActionCheckInterceptor<T> elide(PermissionActionCheckInterceptor<T> interceptor) {
+        return interceptor == INTERCEPTOR ? null : interceptor;
     }
 }
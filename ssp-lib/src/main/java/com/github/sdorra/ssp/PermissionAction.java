@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+/**
+ * A single action of a generated permission class. The action resolves its interceptor from the
+ * {@link PermissionGuard} and its {@link TypedPermission} once, the generated classes hold one instance per declared
+ * action in a static field.
+ *
+ * @author Sebastian Sdorra
+ * @param <T> permission object type
+ */
+public final class PermissionAction<T extends PermissionObject> {
+
+  private final TypedPermission permission;
+  private final PermissionActionCheckInterceptor<T> interceptor;
+  private final PermissionCheck globalCheck;
+  private final PermissionActionCheck<T> actionCheck;
+
+  /**
+   * Constructs a new instance for an action without guard, checks of the action are passed directly to shiro.
+   *
+   * @param type type of permission
+   * @param action name of the action
+   */
+  public PermissionAction(String type, String action) {
+    this(new TypedPermission(type, action), null);
+  }
+
+  /**
+   * Constructs a new instance and asks the guard for the interceptor of the action.
+   *
+   * @param type type of permission
+   * @param action name of the action
+   * @param guard guard for the action
+   */
+  public PermissionAction(String type, String action, PermissionGuard<T> guard) {
+    this(new TypedPermission(type, action), guard.intercept(action));
+  }
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param permission permission with type and action
+   * @param interceptor interceptor for the action or {@code null}
+   */
+  public PermissionAction(TypedPermission permission, PermissionActionCheckInterceptor<T> interceptor) {
+    this.permission = permission;
+    this.interceptor = PassThroughPermissionGuard.elide(interceptor);
+    this.globalCheck = new PermissionCheck(permission, null, null, this.interceptor);
+    this.actionCheck = new PermissionActionCheck<>(permission, this.interceptor, null, null);
+  }
+
+  /**
+   * Returns the global permission check for the action. The check is immutable and created only once.
+   *
+   * @return global permission check
+   */
+  public PermissionCheck check() {
+    return globalCheck;
+  }
+
+  /**
+   * Returns a permission check for the action and the object with the given id. Every call creates a new check,
+   * repeated checks without allocation should use {@link #actionCheck()}.
+   *
+   * @param id id of permission object
+   *
+   * @return permission check
+   */
+  public PermissionCheck check(String id) {
+    return new PermissionCheck(permission, nullToEmpty(id), null, interceptor);
+  }
+
+  /**
+   * Returns a permission check for the action and the given object. Every call creates a new check, repeated
+   * checks without allocation should use {@link #actionCheck()}.
+   *
+   * @param item permission object
+   *
+   * @return permission check
+   */
+  public PermissionCheck check(T item) {
+    return new PermissionCheck(permission, nullToEmpty(item.getId()), item, interceptor);
+  }
+
+  /**
+   * Returns the permission action check for the action. The check is not bound to a subject, it resolves the subject
+   * on every call and is created only once.
+   *
+   * @return permission action check
+   */
+  public PermissionActionCheck<T> actionCheck() {
+    return actionCheck;
+  }
+
+  /**
+   * Returns the permission with type and action.
+   *
+   * @return permission of the action
+   */
+  public TypedPermission getPermission() {
+    return permission;
+  }
+
+  /**
+   * Returns the interceptor of the action or {@code null}, if the action is not guarded.
+   *
+   * @return interceptor or {@code null}
+   */
+  public PermissionActionCheckInterceptor<T> getInterceptor() {
+    return interceptor;
+  }
+
+  private static String nullToEmpty(String id) {
+    return id == null ? "" : id;
+  }
+}
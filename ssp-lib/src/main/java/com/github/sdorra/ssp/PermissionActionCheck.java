@@ -27,17 +27,46 @@ package com.github.sdorra.ssp;
 
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.subject.Subject;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * {@link PermissionActionCheck} to check multiple objects with the same action type.
+ * <p>
+ * A check is either bound to a subject or unbound. The public constructors bind the check to the subject of the
+ * current thread. An unbound check, like those returned by {@link PermissionAction#actionCheck()}, is immutable,
+ * resolves the subject of the current thread on every call and can be shared between threads in a static field. The
+ * variants with a {@link Subject} parameter and the checks of {@link #forSubject(Subject)} skip the lookup of the
+ * subject and of the {@link PermissionContext}.
  *
  * @author Sebastian Sdorra
  * @param <T> permission object type
  */
 public final class PermissionActionCheck<T extends PermissionObject> {
 
-  private final String prefix;
+  /** minimum number of ids per parallel slice, smaller batches are evaluated sequentially */
+  static final int PARALLEL_THRESHOLD = 4096;
+
+  private final TypedPermission permission;
+  private final PermissionContext context;
   private final Subject subject;
 
   private final PermissionActionCheckInterceptor<T> interceptor;
@@ -48,13 +77,52 @@ public final class PermissionActionCheck<T extends PermissionObject> {
    * @param typedAction type of permission action
    */
   public PermissionActionCheck(String typedAction) {
-    this(typedAction, new PermissionActionCheckInterceptor<T>() {});
+    this(typedAction, null);
   }
 
   public PermissionActionCheck(String typedAction, PermissionActionCheckInterceptor<T> interceptor) {
-    this.prefix = typedAction.concat(Constants.SEPARATOR);
-    this.subject = SecurityUtils.getSubject();
-    this.interceptor = interceptor;
+    this(TypedPermission.fromTypedAction(typedAction), interceptor);
+  }
+
+  /**
+   * Constructs a new instance for a structured permission. The permissions for the single objects are derived with
+   * {@link TypedPermission#withId(String)}, so no permission string is built or parsed for a check.
+   *
+   * @param permission permission with type and action
+   * @param interceptor interceptor for the action or {@code null}
+   */
+  public PermissionActionCheck(TypedPermission permission, PermissionActionCheckInterceptor<T> interceptor) {
+    this(permission, interceptor, PermissionContext.current());
+  }
+
+  private PermissionActionCheck(TypedPermission permission, PermissionActionCheckInterceptor<T> interceptor, PermissionContext context) {
+    this(permission, interceptor, context != null ? context.getSubject() : SubjectScope.current(), context);
+  }
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param permission permission with type and action
+   * @param interceptor interceptor for the action or {@code null}
+   * @param subject subject of the check or {@code null} for an unbound check
+   * @param context context of the subject or {@code null}
+   */
+  PermissionActionCheck(TypedPermission permission, PermissionActionCheckInterceptor<T> interceptor, Subject subject, PermissionContext context) {
+    this.permission = permission;
+    this.context = context;
+    this.subject = subject;
+    this.interceptor = PassThroughPermissionGuard.elide(interceptor);
+  }
+
+  /**
+   * Returns a check with the same action, which is bound to the given subject.
+   *
+   * @param subject subject of the check
+   *
+   * @return check bound to the subject
+   */
+  public PermissionActionCheck<T> forSubject(Subject subject) {
+    return new PermissionActionCheck<>(permission, interceptor, Objects.requireNonNull(subject, "subject is required"), null);
   }
 
   //~--- methods --------------------------------------------------------------
@@ -66,8 +134,44 @@ public final class PermissionActionCheck<T extends PermissionObject> {
    *
    * @throws AuthorizationException if current user lacks the required permission
    */
-  public void check (String id){
-    interceptor.check(subject, id, () -> subject.checkPermission(asShiroString(id)));
+  public void check(String id) {
+    PermissionContext context = context();
+    check(subject(context), context, id);
+  }
+
+  /**
+   * Checks if the given subject has the permission for the action with the given object id.
+   *
+   * @param subject subject to check
+   * @param id id of permission object
+   *
+   * @throws AuthorizationException if the subject lacks the required permission
+   */
+  public void check(Subject subject, String id) {
+    check(subject, null, id);
+  }
+
+  private void check(Subject subject, PermissionContext context, String id) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      doCheck(subject, context, id);
+    } else {
+      PermissionMetrics.check(metrics, permission, () -> doCheck(subject, context, id));
+    }
+  }
+
+  private void doCheck(Subject subject, PermissionContext context, String id) {
+    CheckTrace trace = CheckTraces.start(permission, id);
+    if (trace != null) {
+      trace.check(
+        interceptor != null ? delegate -> interceptor.check(subject, id, delegate) : null,
+        () -> checkRealm(subject, context, id)
+      );
+    } else if (interceptor == null) {
+      checkRealm(subject, context, id);
+    } else {
+      interceptor.check(subject, id, () -> checkRealm(subject, context, id));
+    }
   }
 
   /**
@@ -77,8 +181,107 @@ public final class PermissionActionCheck<T extends PermissionObject> {
    *
    * @throws AuthorizationException if current user lacks the required permission
    */
-  public void check (T item){
-    interceptor.check(subject, item, () -> check(item.getId()));
+  public void check(T item) {
+    PermissionContext context = context();
+    check(subject(context), context, item);
+  }
+
+  /**
+   * Checks if the given subject has the permission for the action with the given object.
+   *
+   * @param subject subject to check
+   * @param item permission object
+   *
+   * @throws AuthorizationException if the subject lacks the required permission
+   */
+  public void check(Subject subject, T item) {
+    check(subject, null, item);
+  }
+
+  private void check(Subject subject, PermissionContext context, T item) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      doCheck(subject, context, item);
+    } else {
+      PermissionMetrics.check(metrics, permission, () -> doCheck(subject, context, item));
+    }
+  }
+
+  private void doCheck(Subject subject, PermissionContext context, T item) {
+    CheckTrace trace = CheckTraces.start(permission, item.getId());
+    if (trace != null) {
+      trace.check(
+        interceptor != null ? delegate -> ItemGuards.check(interceptor, subject, item, delegate) : null,
+        () -> checkRealm(subject, context, item.getId())
+      );
+    } else if (interceptor == null) {
+      checkRealm(subject, context, item.getId());
+    } else {
+      ItemGuards.check(interceptor, subject, item, () -> checkRealm(subject, context, item.getId()));
+    }
+  }
+
+  /**
+   * Checks if the current authenticated user has the permission for the action with all of the given object ids.
+   * The permissions are evaluated in one pass and the interceptor is asked once with
+   * {@link PermissionActionCheckInterceptor#isPermitted(Subject, Collection, BulkDelegate)}, every denied object is
+   * reported by the thrown exception.
+   *
+   * @param ids ids of permission objects
+   *
+   * @throws BulkAuthorizationException if current user lacks the required permission for at least one object
+   */
+  public void check(List<String> ids) {
+    if (subject == null) {
+      bound().check(ids);
+      return;
+    }
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      doCheck(ids);
+    } else {
+      PermissionMetrics.check(metrics, permission, ids.size(), () -> doCheck(ids));
+    }
+  }
+
+  private void doCheck(List<String> ids) {
+    assertNotDenied(doIsPermitted(ids), ids.size());
+  }
+
+  /**
+   * Checks if the current authenticated user has the permission for the action with all of the given objects.
+   * The permissions are evaluated in one pass and the interceptor is asked once with
+   * {@link PermissionActionCheckInterceptor#isPermittedItems(Subject, Collection, BulkDelegate)}, every denied object
+   * is reported by the thrown exception.
+   *
+   * @param items permission objects
+   *
+   * @throws BulkAuthorizationException if current user lacks the required permission for at least one object
+   */
+  public void check(Collection<T> items) {
+    if (subject == null) {
+      bound().check(items);
+      return;
+    }
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      doCheck(items);
+    } else {
+      PermissionMetrics.check(metrics, permission, items.size(), () -> doCheck(items));
+    }
+  }
+
+  private void doCheck(Collection<T> items) {
+    assertNotDenied(doIsPermitted(items), items.size());
+  }
+
+  private void assertNotDenied(BitSet permitted, int size) {
+    if (permitted.nextClearBit(0) < size) {
+      BitSet denied = new BitSet(size);
+      denied.set(0, size);
+      denied.andNot(permitted);
+      throw new BulkAuthorizationException(permission.toString(), denied, size);
+    }
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -90,8 +293,46 @@ public final class PermissionActionCheck<T extends PermissionObject> {
    *
    * @return {@code true} if the current authenticated user has the required permission
    */
-  public boolean isPermitted (String id){
-    return interceptor.isPermitted(subject, id, () -> subject.isPermitted(asShiroString(id)));
+  public boolean isPermitted(String id) {
+    PermissionContext context = context();
+    return isPermitted(subject(context), context, id);
+  }
+
+  /**
+   * Returns {@code true} if the given subject has the permission for the action with the given object id.
+   *
+   * @param subject subject to check
+   * @param id id of permission object
+   *
+   * @return {@code true} if the subject has the required permission
+   */
+  public boolean isPermitted(Subject subject, String id) {
+    return isPermitted(subject, null, id);
+  }
+
+  private boolean isPermitted(Subject subject, PermissionContext context, String id) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return doIsPermitted(subject, context, id);
+    }
+    return PermissionMetrics.isPermitted(metrics, permission, () -> doIsPermitted(subject, context, id));
+  }
+
+  private boolean doIsPermitted(Subject subject, PermissionContext context, String id) {
+    CheckTrace trace = CheckTraces.start(permission, id);
+    if (trace != null) {
+      return trace.isPermitted(
+        interceptor != null ? delegate -> DecisionCaches.isPermitted(context, subject, permission, nullToEmpty(id),
+          interceptor, () -> interceptor.isPermitted(subject, id, delegate)
+        ) : null,
+        () -> isPermittedByRealm(subject, context, id)
+      );
+    } else if (interceptor == null) {
+      return isPermittedByRealm(subject, context, id);
+    }
+    return DecisionCaches.isPermitted(context, subject, permission, nullToEmpty(id), interceptor,
+      () -> interceptor.isPermitted(subject, id, () -> isPermittedByRealm(subject, context, id))
+    );
   }
 
   /**
@@ -101,8 +342,434 @@ public final class PermissionActionCheck<T extends PermissionObject> {
    *
    * @return {@code true} if the current authenticated user has the required permission
    */
-  public boolean isPermitted (T item){
-    return interceptor.isPermitted(subject, item, () -> isPermitted(item.getId()));
+  public boolean isPermitted(T item) {
+    PermissionContext context = context();
+    return isPermitted(subject(context), context, item);
+  }
+
+  /**
+   * Returns {@code true} if the given subject has the permission for the action with the given object.
+   *
+   * @param subject subject to check
+   * @param item permission object
+   *
+   * @return {@code true} if the subject has the required permission
+   */
+  public boolean isPermitted(Subject subject, T item) {
+    return isPermitted(subject, null, item);
+  }
+
+  private boolean isPermitted(Subject subject, PermissionContext context, T item) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return doIsPermitted(subject, context, item);
+    }
+    return PermissionMetrics.isPermitted(metrics, permission, () -> doIsPermitted(subject, context, item));
+  }
+
+  private boolean doIsPermitted(Subject subject, PermissionContext context, T item) {
+    CheckTrace trace = CheckTraces.start(permission, item.getId());
+    if (trace != null) {
+      return trace.isPermitted(
+        interceptor != null ? delegate -> DecisionCaches.isPermitted(context, subject, permission,
+          nullToEmpty(item.getId()), interceptor, () -> ItemGuards.isPermitted(interceptor, subject, item, delegate)
+        ) : null,
+        () -> isPermittedByRealm(subject, context, item.getId())
+      );
+    } else if (interceptor == null) {
+      return isPermittedByRealm(subject, context, item.getId());
+    }
+    return DecisionCaches.isPermitted(context, subject, permission, nullToEmpty(item.getId()), interceptor,
+      () -> ItemGuards.isPermitted(interceptor, subject, item, () -> isPermittedByRealm(subject, context, item.getId()))
+    );
+  }
+
+  /**
+   * Returns the decision of the current authenticated user for the action with the given object id. The decision is
+   * returned without an exception, even if the permission is denied.
+   *
+   * @param id id of permission object
+   *
+   * @return decision
+   */
+  public PermissionDecision decide(String id) {
+    return PermissionDecision.of(permission, nullToEmpty(id), isPermitted(id));
+  }
+
+  /**
+   * Returns the decision of the given subject for the action with the given object id.
+   *
+   * @param subject subject to check
+   * @param id id of permission object
+   *
+   * @return decision
+   */
+  public PermissionDecision decide(Subject subject, String id) {
+    return PermissionDecision.of(permission, nullToEmpty(id), isPermitted(subject, id));
+  }
+
+  /**
+   * Returns the decision of the current authenticated user for the action with the given object.
+   *
+   * @param item permission object
+   *
+   * @return decision
+   */
+  public PermissionDecision decide(T item) {
+    return PermissionDecision.of(permission, nullToEmpty(item.getId()), isPermitted(item));
+  }
+
+  /**
+   * Returns the decision of the given subject for the action with the given object.
+   *
+   * @param subject subject to check
+   * @param item permission object
+   *
+   * @return decision
+   */
+  public PermissionDecision decide(Subject subject, T item) {
+    return PermissionDecision.of(permission, nullToEmpty(item.getId()), isPermitted(subject, item));
+  }
+
+  /**
+   * Returns {@code true} if the current authenticated user has the permission for the action with any object. The
+   * decision is made with a single pass over the grants of the subject and is cached per subject.
+   *
+   * @return {@code true} if the permission is granted for any object
+   */
+  public boolean isPermittedForAny() {
+    PermissionContext context = context();
+    return isPermittedForAny(subject(context), context);
+  }
+
+  /**
+   * Returns {@code true} if the given subject has the permission for the action with any object. Guards are asked
+   * with the global check of the interceptor.
+   *
+   * @param subject subject to check
+   *
+   * @return {@code true} if the permission is granted for any object
+   */
+  public boolean isPermittedForAny(Subject subject) {
+    return isPermittedForAny(subject, null);
+  }
+
+  private boolean isPermittedForAny(Subject subject, PermissionContext context) {
+    if (interceptor == null) {
+      return isPermittedForAnyByGrants(subject, context);
+    }
+    return DecisionCaches.isPermitted(context, subject, permission, DecisionCaches.ANY_ID, interceptor,
+      () -> interceptor.isPermitted(subject, () -> isPermittedForAnyByGrants(subject, context))
+    );
+  }
+
+  private boolean isPermittedForAnyByGrants(Subject subject, PermissionContext context) {
+    return DecisionCaches.isPermittedForAny(context, subject, permission, () -> {
+      List<Permission> grants = Grants.of(subject);
+      // without grants only a permission for all objects could be checked
+      return grants != null ? PermittedIds.isAny(permission, grants) : RealmPermissions.isPermitted(subject, permission);
+    });
+  }
+
+  /**
+   * Returns the ids of the objects, for which the current authenticated user has the permission for the action. The
+   * ids are resolved from the grants of the subject, so that database queries could be filtered by them.
+   *
+   * @return permitted ids
+   */
+  public PermittedIds permittedIds() {
+    return permittedIds(subject(context()));
+  }
+
+  /**
+   * Returns the ids of the objects, for which the given subject has the permission for the action.
+   *
+   * @param subject subject to check
+   *
+   * @return permitted ids
+   */
+  public PermittedIds permittedIds(Subject subject) {
+    return PermittedIds.of(permission, Grants.of(subject), interceptor != null);
+  }
+
+  /**
+   * Returns the indexes of all object ids, for which the current authenticated user has the permission of the action.
+   * The authorization info of the user is resolved only once for the whole list.
+   *
+   * @param ids ids of permission objects
+   *
+   * @return {@link BitSet} with a set bit for every permitted id
+   */
+  public BitSet isPermitted(List<String> ids) {
+    if (subject == null) {
+      return bound().isPermitted(ids);
+    }
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return doIsPermitted(ids);
+    }
+    return PermissionMetrics.isPermitted(metrics, permission, ids.size(), () -> doIsPermitted(ids));
+  }
+
+  private BitSet doIsPermitted(List<String> ids) {
+    if (interceptor == null) {
+      return DecisionCaches.isPermitted(subject, permission, ids);
+    }
+    return interceptor.isPermitted(subject, ids, bulkDelegate(() -> DecisionCaches.isPermitted(subject, permission, ids)));
+  }
+
+  /**
+   * Returns the indexes of all objects, for which the current authenticated user has the permission of the action.
+   * The authorization info of the user is resolved only once for the whole collection.
+   *
+   * @param items permission objects
+   *
+   * @return {@link BitSet} with a set bit for every permitted object, in iteration order of the collection
+   */
+  public BitSet isPermitted(Collection<T> items) {
+    if (subject == null) {
+      return bound().isPermitted(items);
+    }
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return doIsPermitted(items);
+    }
+    return PermissionMetrics.isPermitted(metrics, permission, items.size(), () -> doIsPermitted(items));
+  }
+
+  private BitSet doIsPermitted(Collection<T> items) {
+    if (interceptor == null) {
+      return DecisionCaches.isPermitted(subject, permission, ids(items));
+    }
+    return interceptor.isPermittedItems(subject, items, bulkDelegate(() -> DecisionCaches.isPermitted(subject, permission, ids(items))));
+  }
+
+  /**
+   * Returns a delegate, which computes the decisions of the realm only once and only if the interceptor asks for it.
+   */
+  private static BulkDelegate bulkDelegate(BulkDelegate realm) {
+    BitSet[] decisions = new BitSet[1];
+    return () -> {
+      if (decisions[0] == null) {
+        decisions[0] = realm.isPermitted();
+      }
+      return decisions[0];
+    };
+  }
+
+  /**
+   * Passes the decisions of the realm for the objects to the interceptor of the bound subject.
+   *
+   * @param items permission objects
+   * @param permitted decisions of the realm
+   *
+   * @return {@link BitSet} with a set bit for every permitted object
+   */
+  BitSet intercept(Collection<T> items, BitSet permitted) {
+    if (interceptor == null) {
+      return permitted;
+    }
+    return interceptor.isPermittedItems(subject, items, () -> permitted);
+  }
+
+
+  /**
+   * Returns the indexes of all object ids, for which the current authenticated user has the permission of the action.
+   * Large batches are split into slices, which are evaluated in parallel on the given executor. The subject of this
+   * check is bound to the worker threads, so that interceptors which use {@link SecurityUtils#getSubject()} see the
+   * right subject. Batches with less than {@link #PARALLEL_THRESHOLD} ids per slice are evaluated sequentially in
+   * the calling thread.
+   *
+   * @param ids ids of permission objects
+   * @param executor executor for the parallel slices, e.g. {@link ForkJoinPool#commonPool()}
+   *
+   * @return {@link BitSet} with a set bit for every permitted id
+   */
+  public BitSet isPermitted(List<String> ids, Executor executor) {
+    if (subject == null) {
+      return bound().isPermitted(ids, executor);
+    }
+    int size = ids.size();
+    int slices = Math.min(size / PARALLEL_THRESHOLD, parallelism(executor));
+    if (slices <= 1) {
+      return isPermitted(ids);
+    }
+    int sliceSize = (size + slices - 1) / slices;
+    List<CompletableFuture<BitSet>> futures = new ArrayList<>(slices - 1);
+    for (int start = sliceSize; start < size; start += sliceSize) {
+      Callable<BitSet> slice = subject.associateWith(isPermittedSlice(ids, start, Math.min(start + sliceSize, size)));
+      futures.add(CompletableFuture.supplyAsync(() -> AsyncChecks.call(slice), executor));
+    }
+    // the first slice is evaluated by the calling thread, which has the subject already bound
+    BitSet permitted = isPermitted(ids.subList(0, sliceSize));
+    int offset = sliceSize;
+    for (CompletableFuture<BitSet> future : futures) {
+      BitSet slice = join(future);
+      for (int i = slice.nextSetBit(0); i >= 0; i = slice.nextSetBit(i + 1)) {
+        permitted.set(offset + i);
+      }
+      offset += sliceSize;
+    }
+    return permitted;
+  }
+
+  private Callable<BitSet> isPermittedSlice(List<String> ids, int start, int end) {
+    List<String> slice = ids.subList(start, end);
+    return () -> isPermitted(slice);
+  }
+
+  private static int parallelism(Executor executor) {
+    if (executor instanceof ForkJoinPool) {
+      return ((ForkJoinPool) executor).getParallelism();
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private static BitSet join(CompletableFuture<BitSet> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Checks asynchronously if the current authenticated user has the permission for the action with the given object
+   * id. The subject is resolved on the calling thread and is bound to the thread of the executor, which asks the
+   * realm.
+   *
+   * @param id id of permission object
+   * @param executor executor for the realm check
+   *
+   * @return future of the check, which fails with an {@link AuthorizationException} if the permission is not granted
+   */
+  public CompletableFuture<Void> checkAsync(String id, Executor executor) {
+    Subject subject = subject(context());
+    Supplier<CompletionStage<Void>> delegate = () -> AsyncChecks.check(subject, permission, nullToEmpty(id), executor);
+    return checkAsync(() -> interceptor != null ? interceptor.checkAsync(subject, id, delegate) : delegate.get());
+  }
+
+  /**
+   * Checks asynchronously if the current authenticated user has the permission for the action with the given object.
+   *
+   * @param item permission object
+   * @param executor executor for the realm check
+   *
+   * @return future of the check, which fails with an {@link AuthorizationException} if the permission is not granted
+   */
+  public CompletableFuture<Void> checkAsync(T item, Executor executor) {
+    Subject subject = subject(context());
+    Supplier<CompletionStage<Void>> delegate = () -> AsyncChecks.check(subject, permission, nullToEmpty(item.getId()), executor);
+    return checkAsync(() -> interceptor != null ? interceptor.checkAsync(subject, item, delegate) : delegate.get());
+  }
+
+  private CompletableFuture<Void> checkAsync(Supplier<CompletionStage<Void>> check) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return check.get().toCompletableFuture();
+    }
+    return PermissionMetrics.checkAsync(metrics, permission, () -> check.get().toCompletableFuture());
+  }
+
+  /**
+   * Returns asynchronously {@code true} if the current authenticated user has the permission for the action with the
+   * given object id. The subject is resolved on the calling thread and is bound to the thread of the executor, which
+   * asks the realm.
+   *
+   * @param id id of permission object
+   * @param executor executor for the realm check
+   *
+   * @return future decision
+   */
+  public CompletableFuture<Boolean> isPermittedAsync(String id, Executor executor) {
+    Subject subject = subject(context());
+    Supplier<CompletionStage<Boolean>> delegate = () -> AsyncChecks.isPermitted(subject, permission, nullToEmpty(id), executor);
+    return isPermittedAsync(() -> interceptor != null ? interceptor.isPermittedAsync(subject, id, delegate) : delegate.get());
+  }
+
+  /**
+   * Returns asynchronously {@code true} if the current authenticated user has the permission for the action with the
+   * given object.
+   *
+   * @param item permission object
+   * @param executor executor for the realm check
+   *
+   * @return future decision
+   */
+  public CompletableFuture<Boolean> isPermittedAsync(T item, Executor executor) {
+    Subject subject = subject(context());
+    Supplier<CompletionStage<Boolean>> delegate = () -> AsyncChecks.isPermitted(subject, permission, nullToEmpty(item.getId()), executor);
+    return isPermittedAsync(() -> interceptor != null ? interceptor.isPermittedAsync(subject, item, delegate) : delegate.get());
+  }
+
+  private CompletableFuture<Boolean> isPermittedAsync(Supplier<CompletionStage<Boolean>> check) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return check.get().toCompletableFuture();
+    }
+    return PermissionMetrics.isPermittedAsync(metrics, permission, () -> check.get().toCompletableFuture());
+  }
+
+  /**
+   * Returns asynchronously the indexes of all object ids, for which the current authenticated user has the permission
+   * of the action. The batch is evaluated as one pass on the executor, the futures of multiple batches can be combined
+   * with {@link CompletableFuture#allOf(CompletableFuture[])}.
+   *
+   * @param ids ids of permission objects
+   * @param executor executor for the batch
+   *
+   * @return future with a set bit for every permitted id
+   */
+  public CompletableFuture<BitSet> isPermittedAsync(List<String> ids, Executor executor) {
+    PermissionActionCheck<T> check = bound();
+    Callable<BitSet> batch = check.subject.associateWith(() -> check.isPermitted(ids));
+    return CompletableFuture.supplyAsync(() -> AsyncChecks.call(batch), executor);
+  }
+
+  /**
+   * Returns a lazy stream of all objects of the given stream, for which the current authenticated user has the
+   * permission of the action. The objects are pulled in chunks and each chunk is evaluated as one batch, so
+   * short-circuiting operations like {@link Stream#limit(long)} or {@link Stream#findFirst()} stop early.
+   * Closing the returned stream closes the given stream.
+   *
+   * @param items stream of permission objects
+   *
+   * @return stream of permitted objects
+   */
+  public Stream<T> filter(Stream<T> items) {
+    PermissionActionCheck<T> check = bound();
+    Iterator<T> permitted = new PermittedIterator<>(items.iterator(), check::isPermitted);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(permitted, Spliterator.ORDERED), false)
+      .onClose(items::close);
+  }
+
+  /**
+   * Returns a lazy view of all objects of the given iterable, for which the current authenticated user has the
+   * permission of the action. The permissions are evaluated in chunks, every time the view is iterated.
+   *
+   * @param items permission objects
+   *
+   * @return permitted objects
+   */
+  public Iterable<T> filter(Iterable<T> items) {
+    PermissionActionCheck<T> check = bound();
+    return () -> new PermittedIterator<>(items.iterator(), check::isPermitted);
+  }
+
+  /**
+   * Returns a lazy iterator over all ids of the given iterator, for which the current authenticated user has the
+   * permission of the action. The ids are pulled in chunks and each chunk is evaluated as one batch.
+   *
+   * @param ids ids of permission objects
+   *
+   * @return permitted ids
+   */
+  public Iterator<String> filterIds(Iterator<String> ids) {
+    PermissionActionCheck<T> check = bound();
+    return new PermittedIterator<>(ids, check::isPermitted);
   }
 
   /**
@@ -124,10 +791,72 @@ public final class PermissionActionCheck<T extends PermissionObject> {
    * @return shiro permission string
    */
   public String asShiroString (String id){
-    return prefix.concat(nullToEmpty(id));
+    return permission.withId(id).toString();
+  }
+
+  private boolean isPermittedByRealm(Subject subject, PermissionContext context, String id) {
+    return DecisionCaches.isPermitted(context, subject, permission, nullToEmpty(id));
+  }
+
+  private void checkRealm(Subject subject, PermissionContext context, String id) {
+    DecisionCaches.checkPermission(context, subject, permission, nullToEmpty(id));
+  }
+
+  private PermissionContext context() {
+    if (subject == null) {
+      return PermissionContext.current();
+    }
+    // the memo of the context is confined to its thread
+    return context != null && context.isActive() ? context : null;
+  }
+
+  private Subject subject(PermissionContext context) {
+    if (subject != null) {
+      return subject;
+    }
+    return context != null ? context.getSubject() : SubjectScope.current();
+  }
+
+  /**
+   * Returns the permission with type and action of this check.
+   *
+   * @return permission of the action
+   */
+  TypedPermission getPermission() {
+    return permission;
+  }
+
+  /**
+   * Returns the subject of a bound check or {@code null}, if the check resolves the subject on every call.
+   *
+   * @return bound subject or {@code null}
+   */
+  Subject getSubject() {
+    return subject;
+  }
+
+  /**
+   * Returns this check if it is bound or a check bound to the subject of the current thread.
+   *
+   * @return bound check
+   */
+  PermissionActionCheck<T> bound() {
+    if (subject != null) {
+      return this;
+    }
+    PermissionContext current = PermissionContext.current();
+    return new PermissionActionCheck<>(permission, interceptor, subject(current), current);
+  }
+
+  private List<String> ids(Collection<T> items) {
+    List<String> ids = new ArrayList<>(items.size());
+    for (T item : items) {
+      ids.add(item.getId());
+    }
+    return ids;
   }
 
-  private String nullToEmpty (String id){
+  private static String nullToEmpty(String id) {
     return id == null ? "" : id;
   }
 }
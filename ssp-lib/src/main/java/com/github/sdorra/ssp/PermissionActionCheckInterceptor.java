@@ -2,7 +2,11 @@ package com.github.sdorra.ssp;
 
 import org.apache.shiro.subject.Subject;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
 import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 /**
  * Instances of this class will be called for each permission request it has been
@@ -49,7 +53,8 @@ public interface PermissionActionCheckInterceptor<T extends PermissionObject> {
      * Called for permission checks regarding the given permission object that may throw exceptions,
      * when the permission is not granted.
      * The default implementation delegates to {@link #check(Subject, String, Runnable)} with the id
-     * of the permission object.
+     * of the permission object. If it is overridden, the delegate calls {@link #check(Subject, String, Runnable)}
+     * before the original shiro check.
      * <br>
      * If you override this, you should also override {@link #isPermitted(Subject, PermissionObject, BooleanSupplier)}.
      *
@@ -99,7 +104,8 @@ public interface PermissionActionCheckInterceptor<T extends PermissionObject> {
      * Called for permission checks that tell whether the subject has the permission regarding
      * the given permission object.
      * The default implementation delegates to {@link #isPermitted(Subject, String, BooleanSupplier)}
-     * with the id of the permission object.
+     * with the id of the permission object. If it is overridden, the delegate calls
+     * {@link #isPermitted(Subject, String, BooleanSupplier)} before the original shiro check.
      * <br>
      * If you override this, you should also override {@link #check(Subject, PermissionObject, Runnable)}.
      *
@@ -112,4 +118,170 @@ public interface PermissionActionCheckInterceptor<T extends PermissionObject> {
     default boolean isPermitted(Subject subject, T item, BooleanSupplier delegate) {
         return isPermitted(subject, item.getId(), delegate);
     }
+
+    /**
+     * Called for bulk permission checks regarding the permission objects with the given ids, e.g. by
+     * {@link PermissionActionCheck#isPermitted(java.util.List)}, the filters of {@link PermissionActionCheck} and
+     * {@link PermissionMatrix}. Guards which depend on external state could override this method, to fetch the state
+     * of all objects at once.
+     * The default implementation calls {@link #isPermitted(Subject, String, BooleanSupplier)} for every id.
+     *
+     * @param subject  The current subject.
+     * @param ids      The ids of the permission objects.
+     * @param delegate The original bulk check performed by shiro.
+     *
+     * @return {@link BitSet} with a set bit for the index of every permitted id
+     */
+    default BitSet isPermitted(Subject subject, Collection<String> ids, BulkDelegate delegate) {
+        BitSet permitted = delegate.isPermitted();
+        BitSet intercepted = new BitSet(ids.size());
+        int index = 0;
+        for (String id : ids) {
+            boolean granted = permitted.get(index);
+            if (isPermitted(subject, id, () -> granted)) {
+                intercepted.set(index);
+            }
+            index++;
+        }
+        return intercepted;
+    }
+
+    /**
+     * Called for bulk permission checks regarding the given permission objects, e.g. by
+     * {@link PermissionActionCheck#isPermitted(Collection)}, the filters of {@link PermissionActionCheck} and
+     * {@link PermissionMatrix}.
+     * The default implementation calls {@link #isPermitted(Subject, PermissionObject, BooleanSupplier)} for every
+     * object.
+     * <br>
+     * If you override {@link #isPermitted(Subject, Collection, BulkDelegate)} for ids, you may want to override this
+     * method too and pass the ids of the objects.
+     *
+     * @param subject  The current subject.
+     * @param items    The permission objects.
+     * @param delegate The original bulk check performed by shiro.
+     *
+     * @return {@link BitSet} with a set bit for the index of every permitted object, in iteration order
+     */
+    default BitSet isPermittedItems(Subject subject, Collection<T> items, BulkDelegate delegate) {
+        BitSet permitted = delegate.isPermitted();
+        BitSet intercepted = new BitSet(items.size());
+        int index = 0;
+        for (T item : items) {
+            boolean granted = permitted.get(index);
+            if (isPermitted(subject, item, () -> granted)) {
+                intercepted.set(index);
+            }
+            index++;
+        }
+        return intercepted;
+    }
+
+    /**
+     * Returns {@code true} if the decisions of the interceptor may be stored in the registered
+     * {@link DecisionCache}. This is only allowed, if the decision depends on nothing else than the subject, the
+     * permission and the id of the permission object, and could be stale for the lifetime of a cached entry.
+     * The default implementation returns {@code false}, the interceptor is called for every check and only the
+     * decision of the realm is cached.
+     *
+     * @return {@code true} if the decisions of the interceptor are cacheable
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Asynchronous variant of {@link #check(Subject, Runnable)}. The delegate returns the future of the original
+     * shiro check, which fails if the permission is not granted. The default implementation calls
+     * {@link #check(Subject, Runnable)} on the thread which completes the original check.
+     *
+     * @param subject  The current subject.
+     * @param delegate The original check performed by shiro.
+     *
+     * @return future of the check
+     */
+    default CompletionStage<Void> checkAsync(Subject subject, Supplier<CompletionStage<Void>> delegate) {
+        return delegate.get().handle((result, failure) -> {
+            check(subject, () -> AsyncChecks.rethrow(failure));
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #check(Subject, String, Runnable)}. The default implementation calls
+     * {@link #check(Subject, String, Runnable)} on the thread which completes the original check.
+     *
+     * @param subject  The current subject.
+     * @param id       The id of the permission object.
+     * @param delegate The original check performed by shiro.
+     *
+     * @return future of the check
+     */
+    default CompletionStage<Void> checkAsync(Subject subject, String id, Supplier<CompletionStage<Void>> delegate) {
+        return delegate.get().handle((result, failure) -> {
+            check(subject, id, () -> AsyncChecks.rethrow(failure));
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #check(Subject, PermissionObject, Runnable)}. The default implementation calls
+     * {@link #check(Subject, PermissionObject, Runnable)} on the thread which completes the original check.
+     *
+     * @param subject  The current subject.
+     * @param item     The permission object.
+     * @param delegate The original check performed by shiro.
+     *
+     * @return future of the check
+     */
+    default CompletionStage<Void> checkAsync(Subject subject, T item, Supplier<CompletionStage<Void>> delegate) {
+        return delegate.get().handle((result, failure) -> {
+            check(subject, item, () -> AsyncChecks.rethrow(failure));
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link #isPermitted(Subject, BooleanSupplier)}. The delegate starts the original shiro
+     * check and returns its future. The default implementation always starts the original check, because the
+     * synchronous method could only be asked after the check has completed, and calls
+     * {@link #isPermitted(Subject, BooleanSupplier)} on the thread which completes the original check. Interceptors
+     * which decide without shiro should override the asynchronous variants and call the delegate only if needed.
+     *
+     * @param subject  The current subject.
+     * @param delegate The original check performed by shiro.
+     *
+     * @return future decision
+     */
+    default CompletionStage<Boolean> isPermittedAsync(Subject subject, Supplier<CompletionStage<Boolean>> delegate) {
+        return delegate.get().thenApply(permitted -> isPermitted(subject, () -> permitted));
+    }
+
+    /**
+     * Asynchronous variant of {@link #isPermitted(Subject, String, BooleanSupplier)}. The default implementation calls
+     * {@link #isPermitted(Subject, String, BooleanSupplier)} on the thread which completes the original check.
+     *
+     * @param subject  The current subject.
+     * @param id       The id of the permission object.
+     * @param delegate The original check performed by shiro.
+     *
+     * @return future decision
+     */
+    default CompletionStage<Boolean> isPermittedAsync(Subject subject, String id, Supplier<CompletionStage<Boolean>> delegate) {
+        return delegate.get().thenApply(permitted -> isPermitted(subject, id, () -> permitted));
+    }
+
+    /**
+     * Asynchronous variant of {@link #isPermitted(Subject, PermissionObject, BooleanSupplier)}. The default
+     * implementation calls {@link #isPermitted(Subject, PermissionObject, BooleanSupplier)} on the thread which
+     * completes the original check.
+     *
+     * @param subject  The current subject.
+     * @param item     The permission object.
+     * @param delegate The original check performed by shiro.
+     *
+     * @return future decision
+     */
+    default CompletionStage<Boolean> isPermittedAsync(Subject subject, T item, Supplier<CompletionStage<Boolean>> delegate) {
+        return delegate.get().thenApply(permitted -> isPermitted(subject, item, () -> permitted));
+    }
 }
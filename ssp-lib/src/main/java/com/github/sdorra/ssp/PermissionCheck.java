@@ -25,10 +25,16 @@
 
 package com.github.sdorra.ssp;
 
-import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.subject.Subject;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
 /**
  * Checks a defined shiro permission.
  *
@@ -36,8 +42,11 @@ import org.apache.shiro.subject.Subject;
  */
 public final class PermissionCheck {
 
-  private final String permission;
-  private final PermissionCheckInterceptorWrapper interceptorWrapper;
+  private final Permission permission;
+  private final String shiroString;
+  private final String id;
+  private final PermissionObject item;
+  private final PermissionActionCheckInterceptor<PermissionObject> interceptor;
 
   /**
    * Constructs a new instance.
@@ -45,13 +54,44 @@ public final class PermissionCheck {
    * @param permission permission for the check
    */
   public PermissionCheck(String permission) {
-    this(permission, PermissionCheckInterceptorWrapper.none());
+    this(new StringPermission(permission), permission, null, null, null);
   }
 
   public PermissionCheck(String permission, PermissionCheckInterceptorWrapper interceptorWrapper)
   {
+    this(new StringPermission(permission), permission, null, null, new WrapperInterceptor(interceptorWrapper));
+  }
+
+  /**
+   * Constructs a new instance for a structured permission, which is passed to shiro without string conversion.
+   *
+   * @param permission permission for the check
+   * @param interceptorWrapper wrapper for the registered interceptor
+   */
+  public PermissionCheck(TypedPermission permission, PermissionCheckInterceptorWrapper interceptorWrapper) {
+    this(permission, null, null, null, new WrapperInterceptor(interceptorWrapper));
+  }
+
+  /**
+   * Constructs a new instance. The permission for the object is derived from the action permission only, when the
+   * shiro check is executed.
+   *
+   * @param permission permission with type and action
+   * @param id id of permission object or {@code null} for a global check
+   * @param item permission object or {@code null}
+   * @param interceptor interceptor of the action or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  PermissionCheck(TypedPermission permission, String id, PermissionObject item, PermissionActionCheckInterceptor<?> interceptor) {
+    this(permission, null, id, item, (PermissionActionCheckInterceptor<PermissionObject>) PassThroughPermissionGuard.elide(interceptor));
+  }
+
+  private PermissionCheck(Permission permission, String shiroString, String id, PermissionObject item, PermissionActionCheckInterceptor<PermissionObject> interceptor) {
     this.permission = permission;
-    this.interceptorWrapper = interceptorWrapper;
+    this.shiroString = shiroString;
+    this.id = id;
+    this.item = item;
+    this.interceptor = interceptor;
   }
 
   //~--- methods --------------------------------------------------------------
@@ -62,8 +102,38 @@ public final class PermissionCheck {
    * @throws AuthorizationException if current user lacks the required permission
    */
   public void check() {
-    Subject subject = SecurityUtils.getSubject();
-    interceptorWrapper.check(subject, () -> subject.checkPermission(permission));
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      doCheck();
+    } else {
+      PermissionMetrics.check(metrics, permission, this::doCheck);
+    }
+  }
+
+  private void doCheck() {
+    PermissionContext context = PermissionContext.current();
+    Subject subject = context != null ? context.getSubject() : SubjectScope.current();
+    CheckTrace trace = CheckTraces.start(permission, id);
+    if (trace != null) {
+      trace.check(
+        interceptor != null ? delegate -> intercept(subject, delegate) : null,
+        () -> DecisionCaches.checkPermission(context, subject, permission, id)
+      );
+    } else if (interceptor == null) {
+      DecisionCaches.checkPermission(context, subject, permission, id);
+    } else {
+      intercept(subject, () -> DecisionCaches.checkPermission(context, subject, permission, id));
+    }
+  }
+
+  private void intercept(Subject subject, Runnable delegate) {
+    if (item != null) {
+      ItemGuards.check(interceptor, subject, item, delegate);
+    } else if (id != null) {
+      interceptor.check(subject, id, delegate);
+    } else {
+      interceptor.check(subject, delegate);
+    }
   }
 
   //~--- get methods ----------------------------------------------------------
@@ -74,8 +144,135 @@ public final class PermissionCheck {
    * @return {@code true} if the current authenticated user has the required permission
    */
   public boolean isPermitted() {
-    Subject subject = SecurityUtils.getSubject();
-    return interceptorWrapper.isPermitted(subject, () -> subject.isPermitted(permission));
+    PermissionContext context = PermissionContext.current();
+    return isPermitted(context, context != null ? context.getSubject() : SubjectScope.current());
+  }
+
+  /**
+   * Returns {@code true} if the subject has the required permission. The check is recorded by the active metrics.
+   *
+   * @param context active permission context or {@code null}
+   * @param subject subject to check
+   *
+   * @return {@code true} if the subject has the required permission
+   */
+  boolean isPermitted(PermissionContext context, Subject subject) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return doIsPermitted(context, subject);
+    }
+    return PermissionMetrics.isPermitted(metrics, permission, () -> doIsPermitted(context, subject));
+  }
+
+  private boolean doIsPermitted(PermissionContext context, Subject subject) {
+    CheckTrace trace = CheckTraces.start(permission, id);
+    if (trace != null) {
+      return trace.isPermitted(
+        interceptor != null ? delegate -> DecisionCaches.isPermitted(context, subject, permission, id, interceptor,
+          () -> intercept(subject, delegate)
+        ) : null,
+        () -> DecisionCaches.isPermitted(context, subject, permission, id)
+      );
+    } else if (interceptor == null) {
+      return DecisionCaches.isPermitted(context, subject, permission, id);
+    }
+    return DecisionCaches.isPermitted(context, subject, permission, id, interceptor,
+      () -> intercept(subject, () -> DecisionCaches.isPermitted(context, subject, permission, id))
+    );
+  }
+
+  private boolean intercept(Subject subject, BooleanSupplier delegate) {
+    if (item != null) {
+      return ItemGuards.isPermitted(interceptor, subject, item, delegate);
+    } else if (id != null) {
+      return interceptor.isPermitted(subject, id, delegate);
+    }
+    return interceptor.isPermitted(subject, delegate);
+  }
+
+  /**
+   * Returns the decision of the current authenticated user for the required permission. The decision is returned
+   * without an exception, even if the permission is denied. Decisions of global checks are preallocated.
+   *
+   * @return decision
+   */
+  public PermissionDecision decide() {
+    return decision(isPermitted());
+  }
+
+  PermissionDecision decision(boolean granted) {
+    return PermissionDecision.of(permission, id, granted);
+  }
+
+  /**
+   * Checks asynchronously if the current authenticated user has the required permission. The subject is resolved on
+   * the calling thread and is bound to the thread of the executor, which asks the realm.
+   *
+   * @param executor executor for the realm check
+   *
+   * @return future of the check, which fails with an {@link AuthorizationException} if the permission is not granted
+   */
+  public CompletableFuture<Void> checkAsync(Executor executor) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return doCheckAsync(executor);
+    }
+    return PermissionMetrics.checkAsync(metrics, permission, () -> doCheckAsync(executor));
+  }
+
+  private CompletableFuture<Void> doCheckAsync(Executor executor) {
+    Subject subject = subject();
+    if (interceptor == null) {
+      return AsyncChecks.check(subject, permission, id, executor);
+    }
+    Supplier<CompletionStage<Void>> delegate = () -> AsyncChecks.check(subject, permission, id, executor);
+    CompletionStage<Void> stage;
+    if (item != null) {
+      stage = interceptor.checkAsync(subject, item, delegate);
+    } else if (id != null) {
+      stage = interceptor.checkAsync(subject, id, delegate);
+    } else {
+      stage = interceptor.checkAsync(subject, delegate);
+    }
+    return stage.toCompletableFuture();
+  }
+
+  /**
+   * Returns asynchronously {@code true} if the current authenticated user has the required permission. The subject
+   * is resolved on the calling thread and is bound to the thread of the executor, which asks the realm.
+   *
+   * @param executor executor for the realm check
+   *
+   * @return future decision
+   */
+  public CompletableFuture<Boolean> isPermittedAsync(Executor executor) {
+    PermissionCheckMetrics metrics = PermissionMetrics.current();
+    if (metrics == null) {
+      return doIsPermittedAsync(executor);
+    }
+    return PermissionMetrics.isPermittedAsync(metrics, permission, () -> doIsPermittedAsync(executor));
+  }
+
+  private CompletableFuture<Boolean> doIsPermittedAsync(Executor executor) {
+    Subject subject = subject();
+    if (interceptor == null) {
+      return AsyncChecks.isPermitted(subject, permission, id, executor);
+    }
+    Supplier<CompletionStage<Boolean>> delegate = () -> AsyncChecks.isPermitted(subject, permission, id, executor);
+    CompletionStage<Boolean> stage;
+    if (item != null) {
+      stage = interceptor.isPermittedAsync(subject, item, delegate);
+    } else if (id != null) {
+      stage = interceptor.isPermittedAsync(subject, id, delegate);
+    } else {
+      stage = interceptor.isPermittedAsync(subject, delegate);
+    }
+    return stage.toCompletableFuture();
+  }
+
+  private static Subject subject() {
+    PermissionContext context = PermissionContext.current();
+    return context != null ? context.getSubject() : SubjectScope.current();
   }
 
   /**
@@ -84,12 +281,45 @@ public final class PermissionCheck {
    * @return shiro permission string
    */
   public String asShiroString() {
-    return permission;
+    return shiroString != null ? shiroString : permission().toString();
   }
 
   @Override
   public String toString() {
-    return permission;
+    return asShiroString();
+  }
+
+  /**
+   * Returns the permission including the id of the object, which is passed to shiro.
+   *
+   * @return shiro permission
+   */
+  Permission permission() {
+    if (id == null) {
+      return permission;
+    }
+    return ((TypedPermission) permission).withId(id);
   }
 
+  /**
+   * Adapts a {@link PermissionCheckInterceptorWrapper} for global checks.
+   */
+  private static final class WrapperInterceptor implements PermissionActionCheckInterceptor<PermissionObject> {
+
+    private final PermissionCheckInterceptorWrapper wrapper;
+
+    private WrapperInterceptor(PermissionCheckInterceptorWrapper wrapper) {
+      this.wrapper = wrapper;
+    }
+
+    @Override
+    public void check(Subject subject, Runnable delegate) {
+      wrapper.check(subject, delegate);
+    }
+
+    @Override
+    public boolean isPermitted(Subject subject, BooleanSupplier delegate) {
+      return wrapper.isPermitted(subject, delegate);
+    }
+  }
 }
@@ -0,0 +1,226 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link PermissionCheckMetrics}, which counts granted, denied and failed checks and records their durations
+ * per type and action. Counters are striped {@link LongAdder}s and the lookup of an existing counter does not
+ * allocate. The collected values can be written with a {@link PermissionMetricsExporter}.
+ * <p>
+ * The number of counters is limited, because custom actions and permissions created from strings could produce an
+ * unbounded number of types and actions. Checks of further types and actions are counted by a single counter with
+ * type and action {@link #OTHER}.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PermissionCheckCounters implements PermissionCheckMetrics {
+
+  /** default maximum number of counters */
+  public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+  /** type and action of the counter for checks, which exceed the maximum number of counters */
+  public static final String OTHER = "other";
+
+  private final ConcurrentMap<String, ConcurrentMap<String, Counter>> counters = new ConcurrentHashMap<>();
+  private final Counter other = new Counter(OTHER, OTHER);
+  private final AtomicInteger size = new AtomicInteger();
+  private final int maximumSize;
+
+  private volatile boolean overflowed;
+
+  /**
+   * Constructs a new instance with the default maximum number of counters.
+   */
+  public PermissionCheckCounters() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param maximumSize maximum number of counters for distinct types and actions
+   */
+  public PermissionCheckCounters(int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximum size must be greater than zero");
+    }
+    this.maximumSize = maximumSize;
+  }
+
+  @Override
+  public void record(Permission permission, Outcome outcome, long nanos) {
+    Counter counter = counter(permission);
+    counter.count(outcome, 1);
+    counter.latency.record(nanos);
+  }
+
+  @Override
+  public void recordBatch(Permission permission, int granted, int denied, long nanos) {
+    int size = granted + denied;
+    if (size == 0) {
+      return;
+    }
+    Counter counter = counter(permission);
+    counter.count(Outcome.GRANTED, granted);
+    counter.count(Outcome.DENIED, denied);
+    counter.latency.record(nanos / size, size);
+  }
+
+  /**
+   * Returns a snapshot of all counters.
+   *
+   * @return all counters
+   */
+  public Collection<Counter> getCounters() {
+    List<Counter> snapshot = new ArrayList<>();
+    for (ConcurrentMap<String, Counter> actions : counters.values()) {
+      snapshot.addAll(actions.values());
+    }
+    if (overflowed) {
+      snapshot.add(other);
+    }
+    return snapshot;
+  }
+
+  private Counter counter(Permission permission) {
+    String type;
+    String action;
+    if (permission instanceof TypedPermission) {
+      TypedPermission typedPermission = (TypedPermission) permission;
+      type = typedPermission.getType();
+      action = typedPermission.getAction();
+    } else {
+      // permissions created from strings contain the id, which must not become part of the key
+      String[] parts = String.valueOf(permission).split(Constants.SEPARATOR, 3);
+      type = parts[0];
+      action = parts.length > 1 ? parts[1] : null;
+    }
+    String actionKey = action != null ? action : "";
+    ConcurrentMap<String, Counter> actions = counters.get(type);
+    Counter counter = actions != null ? actions.get(actionKey) : null;
+    if (counter != null) {
+      return counter;
+    }
+    if (size.get() >= maximumSize) {
+      overflowed = true;
+      return other;
+    }
+    if (actions == null) {
+      actions = counters.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+    }
+    // concurrent checks of new actions could exceed the maximum by the number of threads
+    return actions.computeIfAbsent(actionKey, a -> {
+      size.incrementAndGet();
+      return new Counter(type, action);
+    });
+  }
+
+  /**
+   * Counters of a single type and action.
+   */
+  public static final class Counter {
+
+    private final String type;
+    private final String action;
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private Counter(String type, String action) {
+      this.type = type;
+      this.action = action;
+    }
+
+    private void count(Outcome outcome, long count) {
+      switch (outcome) {
+        case GRANTED:
+          granted.add(count);
+          break;
+        case DENIED:
+          denied.add(count);
+          break;
+        default:
+          exceptions.add(count);
+      }
+    }
+
+    /**
+     * Returns the permission type.
+     *
+     * @return permission type
+     */
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * Returns the permission action or {@code null} if the permission has no action.
+     *
+     * @return permission action or {@code null}
+     */
+    public String getAction() {
+      return action;
+    }
+
+    /**
+     * Returns the number of checks with the given outcome.
+     *
+     * @param outcome outcome of check
+     *
+     * @return number of checks
+     */
+    public long getCount(Outcome outcome) {
+      switch (outcome) {
+        case GRANTED:
+          return granted.sum();
+        case DENIED:
+          return denied.sum();
+        default:
+          return exceptions.sum();
+      }
+    }
+
+    /**
+     * Returns the histogram of the check durations.
+     *
+     * @return latency histogram
+     */
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+
+/**
+ * SPI which is notified about every permission check of {@link PermissionCheck} and {@link PermissionActionCheck}
+ * and therefore about every check of the generated classes. An implementation is registered with
+ * {@link PermissionMetrics#register(PermissionCheckMetrics)}, {@link PermissionCheckCounters} is the default one.
+ * <p>
+ * Implementations are called from the checking thread and must be thread-safe and fast.
+ *
+ * @author Sebastian Sdorra
+ */
+public interface PermissionCheckMetrics {
+
+  /**
+   * Outcome of a permission check.
+   */
+  enum Outcome {
+
+    /** the permission was granted */
+    GRANTED,
+
+    /** the permission was denied */
+    DENIED,
+
+    /** the check failed with an exception, which is not an {@link org.apache.shiro.authz.AuthorizationException} */
+    EXCEPTION
+  }
+
+  /**
+   * Records a single permission check. For checks of generated classes the permission is a {@link TypedPermission}
+   * without id, so that implementations can aggregate by type and action.
+   *
+   * @param permission checked permission
+   * @param outcome outcome of the check
+   * @param nanos duration of the check in nanoseconds
+   */
+  void record(Permission permission, Outcome outcome, long nanos);
+
+  /**
+   * Records a batch of permission checks of the same permission. The default implementation records every check
+   * of the batch with the average duration.
+   *
+   * @param permission checked permission
+   * @param granted number of granted checks
+   * @param denied number of denied checks
+   * @param nanos duration of the whole batch in nanoseconds
+   */
+  default void recordBatch(Permission permission, int granted, int denied, long nanos) {
+    int size = granted + denied;
+    long average = size > 0 ? nanos / size : 0;
+    for (int i = 0; i < granted; i++) {
+      record(permission, Outcome.GRANTED, average);
+    }
+    for (int i = 0; i < denied; i++) {
+      record(permission, Outcome.DENIED, average);
+    }
+  }
+}
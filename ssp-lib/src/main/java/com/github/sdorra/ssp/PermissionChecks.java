@@ -0,0 +1,211 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.subject.Subject;
+
+/**
+ * Composite of {@link PermissionCheck}s, which requires any or all of its checks. The checks could be of different
+ * types and could be combined with {@link #and(PermissionCheck...)} and {@link #or(PermissionCheck...)}:
+ *
+ * <pre>
+ * PermissionChecks.anyOf(RepositoryPermissions.modify(id), RepositoryPermissions.delete(id))
+ *   .and(RepositoryPermissions.create())
+ *   .check();
+ * </pre>
+ *
+ * The subject is resolved only once for all checks. Each check is asked like a single check, with decision cache,
+ * permission context, metrics and traces, and only if the result is not already decided.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PermissionChecks {
+
+  private final boolean all;
+  private final PermissionCheck[] checks;
+  private final PermissionChecks[] composites;
+  private final String description;
+
+  private PermissionChecks(boolean all, PermissionCheck[] checks, PermissionChecks... composites) {
+    this.all = all;
+    this.checks = checks.clone();
+    this.composites = composites;
+    StringBuilder builder = new StringBuilder(all ? "allOf[" : "anyOf[");
+    for (PermissionChecks composite : composites) {
+      append(builder, composite.description);
+    }
+    for (PermissionCheck check : checks) {
+      append(builder, check.asShiroString());
+    }
+    this.description = builder.append(']').toString();
+  }
+
+  private static void append(StringBuilder builder, String value) {
+    if (builder.charAt(builder.length() - 1) != '[') {
+      builder.append(", ");
+    }
+    builder.append(value);
+  }
+
+  /**
+   * Returns a composite, which requires any of the given checks.
+   *
+   * @param checks permission checks
+   *
+   * @return composite check
+   */
+  public static PermissionChecks anyOf(PermissionCheck... checks) {
+    return new PermissionChecks(false, checks);
+  }
+
+  /**
+   * Returns a composite, which requires all of the given checks.
+   *
+   * @param checks permission checks
+   *
+   * @return composite check
+   */
+  public static PermissionChecks allOf(PermissionCheck... checks) {
+    return new PermissionChecks(true, checks);
+  }
+
+  /**
+   * Returns a composite, which requires this composite and all of the given checks.
+   *
+   * @param checks permission checks
+   *
+   * @return composite check
+   */
+  public PermissionChecks and(PermissionCheck... checks) {
+    return new PermissionChecks(true, checks, this);
+  }
+
+  /**
+   * Returns a composite, which requires this and the given composite.
+   *
+   * @param composite composite check
+   *
+   * @return composite check
+   */
+  public PermissionChecks and(PermissionChecks composite) {
+    return new PermissionChecks(true, new PermissionCheck[0], this, composite);
+  }
+
+  /**
+   * Returns a composite, which requires this composite or any of the given checks.
+   *
+   * @param checks permission checks
+   *
+   * @return composite check
+   */
+  public PermissionChecks or(PermissionCheck... checks) {
+    return new PermissionChecks(false, checks, this);
+  }
+
+  /**
+   * Returns a composite, which requires this or the given composite.
+   *
+   * @param composite composite check
+   *
+   * @return composite check
+   */
+  public PermissionChecks or(PermissionChecks composite) {
+    return new PermissionChecks(false, new PermissionCheck[0], this, composite);
+  }
+
+  /**
+   * Checks if the current authenticated user has the required permissions. If the {@link PermissionDeniedException}
+   * is enabled, it is thrown with the decision of the check, which has denied the composite.
+   *
+   * @throws AuthorizationException if current user lacks the required permissions
+   */
+  public void check() {
+    PermissionContext context = PermissionContext.current();
+    Subject subject = context != null ? context.getSubject() : SubjectScope.current();
+    PermissionCheck[] denied = new PermissionCheck[1];
+    if (isPermitted(context, subject, denied)) {
+      return;
+    }
+    // a composite without checks has no decision
+    if (PermissionDeniedException.isEnabled() && denied[0] != null) {
+      throw new PermissionDeniedException(denied[0].decision(false), description);
+    }
+    throw new UnauthorizedException("Subject does not have permissions " + description);
+  }
+
+  /**
+   * Returns {@code true} if the current authenticated user has the required permissions.
+   *
+   * @return {@code true} if the current authenticated user has the required permissions
+   */
+  public boolean isPermitted() {
+    PermissionContext context = PermissionContext.current();
+    return isPermitted(context, context != null ? context.getSubject() : SubjectScope.current());
+  }
+
+  /**
+   * Returns {@code true} if the given subject has the required permissions.
+   *
+   * @param subject subject to check
+   *
+   * @return {@code true} if the subject has the required permissions
+   */
+  public boolean isPermitted(Subject subject) {
+    return isPermitted(null, subject);
+  }
+
+  private boolean isPermitted(PermissionContext context, Subject subject) {
+    return isPermitted(context, subject, null);
+  }
+
+  /**
+   * Asks the checks until the result is decided and stores the last denied check in the optional array.
+   */
+  private boolean isPermitted(PermissionContext context, Subject subject, PermissionCheck[] denied) {
+    for (PermissionCheck check : checks) {
+      boolean permitted = check.isPermitted(context, subject);
+      if (!permitted && denied != null) {
+        denied[0] = check;
+      }
+      if (permitted != all) {
+        return !all;
+      }
+    }
+    for (PermissionChecks composite : composites) {
+      if (composite.isPermitted(context, subject, denied) != all) {
+        return !all;
+      }
+    }
+    return all;
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+}
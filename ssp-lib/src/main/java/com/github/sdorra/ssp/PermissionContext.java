@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.subject.Subject;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Scope for a request or a unit of work, which resolves the subject only once and memoizes the decisions of all
+ * permission checks within the scope. The context is bound to the opening thread and must be closed on the same
+ * thread, preferably with try-with-resources:
+ * <pre>
+ * try (PermissionContext context = PermissionContext.open()) {
+ *   // all checks on this thread use the subject and the memo of the context
+ * }
+ * </pre>
+ * Closing the context drops all decisions, so no invalidation is required. The memo holds at most
+ * {@value #MAXIMUM_SIZE} decisions, if it is full all decisions are dropped and the memo starts over, so a context
+ * which checks millions of objects does not keep them all. Decisions of guards are only memoized, if
+ * the interceptor is {@link PermissionActionCheckInterceptor#isCacheable() cacheable}. Decisions of anonymous subjects
+ * are never memoized and the context must not span a login, logout or run as of the subject.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PermissionContext implements AutoCloseable {
+
+  private static final ThreadLocal<PermissionContext> CURRENT = new ThreadLocal<>();
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int MAXIMUM_CAPACITY = 4096;
+
+  /**
+   * Maximum number of memoized decisions.
+   */
+  static final int MAXIMUM_SIZE = MAXIMUM_CAPACITY / 4 * 3;
+
+  private static final byte USED = 1;
+  private static final byte GUARDED = 2;
+  private static final byte PERMITTED = 4;
+
+  private final Subject subject;
+  private final boolean memoizing;
+  private final Thread owner;
+  private final PermissionContext previous;
+
+  private String[] types = new String[INITIAL_CAPACITY];
+  private String[] actions = new String[INITIAL_CAPACITY];
+  private String[] ids = new String[INITIAL_CAPACITY];
+  private byte[] decisions = new byte[INITIAL_CAPACITY];
+  private int size;
+  private boolean closed;
+
+  private PermissionContext(Subject subject, PermissionContext previous) {
+    this.subject = subject;
+    this.memoizing = subject.getPrincipal() != null;
+    this.owner = Thread.currentThread();
+    this.previous = previous;
+  }
+
+  /**
+   * Opens a new context for the subject of the current {@link SubjectScope}.
+   *
+   * @return opened context
+   */
+  public static PermissionContext open() {
+    return open(SubjectScope.current());
+  }
+
+  /**
+   * Opens a new context for the given subject. An already opened context of the thread is restored, when the new
+   * context is closed.
+   *
+   * @param subject subject of the context
+   *
+   * @return opened context
+   */
+  public static PermissionContext open(Subject subject) {
+    PermissionContext context = new PermissionContext(Objects.requireNonNull(subject, "subject is required"), CURRENT.get());
+    CURRENT.set(context);
+    return context;
+  }
+
+  /**
+   * Returns the opened context of the current thread or {@code null}.
+   *
+   * @return context or {@code null}
+   */
+  static PermissionContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Returns the subject of the context.
+   *
+   * @return subject
+   */
+  public Subject getSubject() {
+    return subject;
+  }
+
+  /**
+   * Returns {@code true} if the context is still open and is used from its owning thread.
+   *
+   * @return {@code true} if the context is active
+   */
+  boolean isActive() {
+    return !closed && owner == Thread.currentThread();
+  }
+
+  /**
+   * Returns the memoized decision or {@code null}.
+   *
+   * @param permission permission with type and action
+   * @param id id of the permission object or {@code null}
+   * @param guarded {@code true} for decisions of a guard
+   *
+   * @return memoized decision or {@code null}
+   */
+  Boolean get(TypedPermission permission, String id, boolean guarded) {
+    if (!memoizing) {
+      return null;
+    }
+    int index = indexOf(permission.getType(), permission.getAction(), id, guarded);
+    byte decision = decisions[index];
+    if (decision == 0) {
+      return null;
+    }
+    return (decision & PERMITTED) != 0 ? Boolean.TRUE : Boolean.FALSE;
+  }
+
+  /**
+   * Memoizes a decision.
+   *
+   * @param permission permission with type and action
+   * @param id id of the permission object or {@code null}
+   * @param guarded {@code true} for decisions of a guard
+   * @param permitted {@code true} if the permission was granted
+   */
+  void put(TypedPermission permission, String id, boolean guarded, boolean permitted) {
+    if (!memoizing) {
+      return;
+    }
+    if ((size + 1) * 4 > decisions.length * 3) {
+      if (decisions.length < MAXIMUM_CAPACITY) {
+        resize();
+      } else {
+        clear();
+      }
+    }
+    String type = permission.getType();
+    String action = permission.getAction();
+    int index = indexOf(type, action, id, guarded);
+    if (decisions[index] == 0) {
+      types[index] = type;
+      actions[index] = action;
+      ids[index] = id;
+      size++;
+    }
+    decisions[index] = flags(guarded, permitted);
+  }
+
+  /**
+   * Returns the number of memoized decisions.
+   *
+   * @return number of memoized decisions
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Drops all decisions and restores the previous context of the thread.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    if (owner != Thread.currentThread()) {
+      throw new IllegalStateException("permission context must be closed by the thread which has opened it");
+    }
+    closed = true;
+    types = null;
+    actions = null;
+    ids = null;
+    decisions = null;
+    if (CURRENT.get() == this) {
+      if (previous != null && !previous.closed) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+  }
+
+  private int indexOf(String type, String action, String id, boolean guarded) {
+    int mask = decisions.length - 1;
+    int index = hash(type, action, id, guarded) & mask;
+    while (decisions[index] != 0) {
+      if (((decisions[index] & GUARDED) != 0) == guarded
+        && Objects.equals(ids[index], id)
+        && Objects.equals(actions[index], action)
+        && type.equals(types[index])) {
+        break;
+      }
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  private void resize() {
+    String[] oldTypes = types;
+    String[] oldActions = actions;
+    String[] oldIds = ids;
+    byte[] oldDecisions = decisions;
+    types = new String[oldDecisions.length * 2];
+    actions = new String[oldDecisions.length * 2];
+    ids = new String[oldDecisions.length * 2];
+    decisions = new byte[oldDecisions.length * 2];
+    for (int i = 0; i < oldDecisions.length; i++) {
+      byte decision = oldDecisions[i];
+      if (decision != 0) {
+        int index = indexOf(oldTypes[i], oldActions[i], oldIds[i], (decision & GUARDED) != 0);
+        types[index] = oldTypes[i];
+        actions[index] = oldActions[i];
+        ids[index] = oldIds[i];
+        decisions[index] = decision;
+      }
+    }
+  }
+
+  private void clear() {
+    Arrays.fill(types, null);
+    Arrays.fill(actions, null);
+    Arrays.fill(ids, null);
+    Arrays.fill(decisions, (byte) 0);
+    size = 0;
+  }
+
+  private static int hash(String type, String action, String id, boolean guarded) {
+    // strings cache their hash code, so the hash is cheap for the shared types and actions, the action is null for
+    // checks, which are constructed only with a type
+    int hash = type.hashCode() * 31 + Objects.hashCode(action);
+    hash = hash * 31 + Objects.hashCode(id);
+    hash = hash * 31 + (guarded ? 1 : 0);
+    return hash ^ (hash >>> 16);
+  }
+
+  private static byte flags(boolean guarded, boolean permitted) {
+    int flags = USED;
+    if (guarded) {
+      flags |= GUARDED;
+    }
+    if (permitted) {
+      flags |= PERMITTED;
+    }
+    return (byte) flags;
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+
+/**
+ * Decision of a permission check with type, action and id of the permission. Decisions of global checks are
+ * allocated only once per action, decisions for an object are small immutable objects without stack trace.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PermissionDecision {
+
+  private final String type;
+  private final String action;
+  private final String id;
+  private final boolean granted;
+
+  PermissionDecision(String type, String action, String id, boolean granted) {
+    this.type = type;
+    this.action = action;
+    this.id = id;
+    this.granted = granted;
+  }
+
+  /**
+   * Returns the decision for the permission and the id. Decisions of global typed permissions are preallocated.
+   *
+   * @param permission permission of the check
+   * @param id id of permission object or {@code null}
+   * @param granted {@code true} if the permission is granted
+   *
+   * @return decision
+   */
+  static PermissionDecision of(Permission permission, String id, boolean granted) {
+    if (permission instanceof TypedPermission) {
+      TypedPermission typedPermission = (TypedPermission) permission;
+      if (id == null) {
+        return typedPermission.decision(granted);
+      }
+      return new PermissionDecision(typedPermission.getType(), typedPermission.getAction(), id, granted);
+    }
+    String[] parts = permission.toString().split(Constants.SEPARATOR, 3);
+    return new PermissionDecision(
+      parts[0], parts.length > 1 ? parts[1] : null, parts.length > 2 ? parts[2] : id, granted
+    );
+  }
+
+  /**
+   * Returns {@code true} if the permission is granted.
+   *
+   * @return {@code true} if granted
+   */
+  public boolean isGranted() {
+    return granted;
+  }
+
+  /**
+   * Returns {@code true} if the permission is denied.
+   *
+   * @return {@code true} if denied
+   */
+  public boolean isDenied() {
+    return !granted;
+  }
+
+  /**
+   * Returns the type of the permission.
+   *
+   * @return permission type
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Returns the action of the permission.
+   *
+   * @return permission action
+   */
+  public String getAction() {
+    return action;
+  }
+
+  /**
+   * Returns the id of the permission object or {@code null} for global permissions.
+   *
+   * @return id of permission object or {@code null}
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Throws a {@link PermissionDeniedException} if the permission is denied.
+   *
+   * @throws PermissionDeniedException if the permission is denied
+   */
+  public void check() {
+    if (!granted) {
+      throw exception();
+    }
+  }
+
+  PermissionDeniedException exception() {
+    // exceptions are never shared, because a caller could add suppressed exceptions of another request
+    return new PermissionDeniedException(this);
+  }
+
+  /**
+   * Returns the permission of the decision in the shiro string format.
+   *
+   * @return permission string
+   */
+  String asShiroString() {
+    StringBuilder builder = new StringBuilder(type);
+    if (action != null) {
+      builder.append(Constants.SEPARATOR).append(action);
+    }
+    if (id != null) {
+      builder.append(Constants.SEPARATOR).append(id);
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public String toString() {
+    return (granted ? "granted " : "denied ") + asShiroString();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.UnauthorizedException;
+
+/**
+ * Exception without stack trace for denied permissions. Checks throw this exception instead of the
+ * {@link UnauthorizedException} of shiro only if it is enabled with {@link #enable()}, because the missing stack
+ * trace makes it harder to find the origin of a denial. Every denial throws a new exception, without a stack trace
+ * it consists only of the decision and the message is built on demand. Exceptions thrown by interceptors are not
+ * affected.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PermissionDeniedException extends UnauthorizedException {
+
+  private static final long serialVersionUID = -2405683325389463728L;
+
+  private static volatile boolean enabled;
+
+  private final transient PermissionDecision decision;
+  private final String composite;
+
+  PermissionDeniedException(PermissionDecision decision) {
+    this(decision, null);
+  }
+
+  PermissionDeniedException(PermissionDecision decision, String composite) {
+    this.decision = decision;
+    this.composite = composite;
+  }
+
+  /**
+   * Enables the exception for denied checks.
+   */
+  public static void enable() {
+    enabled = true;
+  }
+
+  /**
+   * Disables the exception, denied checks throw the {@link UnauthorizedException} of shiro again.
+   */
+  public static void disable() {
+    enabled = false;
+  }
+
+  /**
+   * Returns {@code true} if denied checks throw this exception.
+   *
+   * @return {@code true} if enabled
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the decision, which has caused the exception. For composite checks it is the decision of the check, which
+   * has denied the composite.
+   *
+   * @return denied decision
+   */
+  public PermissionDecision getDecision() {
+    return decision;
+  }
+
+  @Override
+  public String getMessage() {
+    if (composite != null) {
+      return "Subject does not have permissions " + composite;
+    }
+    return "Subject does not have permission [" + decision.asShiroString() + "]";
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Epochs of the grants, which are used to detect stale cached decisions and compiled indexes. There is one global
+ * epoch and striped epochs for subjects and types. Every invalidation increments the matching counter, a cached value
+ * records the epoch under which it was computed and is stale as soon as the current epoch differs.
+ * <p>
+ * Subjects and types are mapped to a fixed number of stripes, so an invalidation could make decisions of other
+ * subjects or types of the same stripe stale too. This costs only a few additional realm checks, but keeps the memory
+ * of the counters constant and never misses an invalidation.
+ *
+ * @author Sebastian Sdorra
+ * @see InvalidationBus
+ */
+public final class PermissionEpochs {
+
+  private static final int STRIPES = 64;
+
+  // one counter per cache line, to avoid false sharing between stripes
+  private static final int PADDING = 8;
+
+  private static final AtomicLong GLOBAL = new AtomicLong();
+  private static final AtomicLong TYPES = new AtomicLong();
+  private static final AtomicLongArray SUBJECT_STRIPES = new AtomicLongArray(STRIPES * PADDING);
+  private static final AtomicLongArray TYPE_STRIPES = new AtomicLongArray(STRIPES * PADDING);
+
+  private PermissionEpochs() {
+  }
+
+  /**
+   * Returns the epoch for the decisions of the subject about the given type. The epoch moves on, if grants of all
+   * subjects, of the subject or of the type are invalidated.
+   *
+   * @param principal primary principal of the subject
+   * @param type type of permission
+   *
+   * @return current epoch
+   */
+  public static long current(Object principal, String type) {
+    return GLOBAL.get() + SUBJECT_STRIPES.get(stripe(principal)) + TYPE_STRIPES.get(stripe(type));
+  }
+
+  /**
+   * Returns the epoch for all grants of the subject, e.g. for a compiled {@link PermissionIndex}. The epoch moves on,
+   * if grants of all subjects, of the subject or of any type are invalidated.
+   *
+   * @param principal primary principal of the subject or {@code null}, if the subject is unknown
+   *
+   * @return current epoch
+   */
+  public static long current(Object principal) {
+    long epoch = GLOBAL.get() + TYPES.get();
+    if (principal != null) {
+      epoch += SUBJECT_STRIPES.get(stripe(principal));
+    }
+    return epoch;
+  }
+
+  /**
+   * Makes all cached decisions and indexes stale.
+   */
+  public static void invalidateAll() {
+    GLOBAL.incrementAndGet();
+  }
+
+  /**
+   * Makes the cached decisions and the indexes of the subject stale.
+   *
+   * @param principal primary principal of the subject
+   */
+  public static void invalidateSubject(Object principal) {
+    SUBJECT_STRIPES.incrementAndGet(stripe(principal));
+  }
+
+  /**
+   * Makes the cached decisions about the type and all indexes stale.
+   *
+   * @param type type of permission
+   */
+  public static void invalidateType(String type) {
+    TYPE_STRIPES.incrementAndGet(stripe(type));
+    TYPES.incrementAndGet();
+  }
+
+  /**
+   * Applies the invalidation to the epochs.
+   *
+   * @param invalidation invalidation to apply
+   */
+  public static void apply(Invalidation invalidation) {
+    switch (invalidation.getScope()) {
+      case SUBJECT:
+        invalidateSubject(invalidation.getValue());
+        break;
+      case TYPE:
+        invalidateType((String) invalidation.getValue());
+        break;
+      default:
+        invalidateAll();
+    }
+  }
+
+  private static int stripe(Object value) {
+    int hash = value != null ? value.hashCode() : 0;
+    hash ^= hash >>> 16;
+    hash *= 0x45d9f3b;
+    hash ^= hash >>> 16;
+    return (hash & (STRIPES - 1)) * PADDING;
+  }
+}
@@ -2,7 +2,8 @@ package com.github.sdorra.ssp;
 
 /**
  * Implement this interface to create {@link PermissionActionCheckInterceptor} instances that will
- * be used to intercept permission requests.
+ * be used to intercept permission requests. The generated classes call {@link #intercept(String)} only once for each
+ * declared action and reuse the returned interceptor for every check, so the interceptor has to be thread-safe.
  * @param <T> The permission object this guard is used for.
  */
 public interface PermissionGuard<T extends PermissionObject> {
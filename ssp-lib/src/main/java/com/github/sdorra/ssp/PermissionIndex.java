@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Permission which implies everything, that is implied by at least one of its granted permissions. Instead of
+ * scanning all grants with {@link Permission#implies(Permission)}, the {@link WildcardPermission} grants are compiled
+ * into a trie of type, action and id with wildcard nodes, so that a check costs O(depth) instead of O(grants). The
+ * trie of a type is built lazily on the first check for that type.
+ * <p>
+ * Grants of other types, which may define their own semantic for {@code implies}, are checked linear for every
+ * request. Requests with multiple values in a part (like {@code repository:read:a,b}) are checked linear, too.
+ *
+ * @author Sebastian Sdorra
+ * @see IndexedAuthorizationInfo
+ */
+public final class PermissionIndex implements Permission, Serializable {
+
+  private static final long serialVersionUID = -1457830012984572350L;
+
+  private static final String WILDCARD = "*";
+
+  private final List<Permission> permissions;
+  private final List<Permission> indexedPermissions = new ArrayList<>();
+  private final List<List<Set<String>>> indexed = new ArrayList<>();
+  private final List<Permission> unindexed = new ArrayList<>();
+
+  private transient volatile ConcurrentMap<String, Node> types;
+
+  /**
+   * Constructs a new index for the given grants.
+   *
+   * @param permissions granted permissions
+   */
+  public PermissionIndex(Collection<Permission> permissions) {
+    this.permissions = Collections.unmodifiableList(new ArrayList<>(permissions));
+    for (Permission permission : this.permissions) {
+      List<Set<String>> parts = parts(permission);
+      if (parts != null) {
+        indexedPermissions.add(permission);
+        indexed.add(parts);
+      } else {
+        unindexed.add(permission);
+      }
+    }
+  }
+
+  /**
+   * Returns all granted permissions of the index.
+   *
+   * @return granted permissions
+   */
+  public List<Permission> getPermissions() {
+    return permissions;
+  }
+
+  @Override
+  public boolean implies(Permission permission) {
+    for (Permission grant : unindexed) {
+      if (grant.implies(permission)) {
+        return true;
+      }
+    }
+    if (indexed.isEmpty()) {
+      return false;
+    }
+    List<Set<String>> parts = parts(permission);
+    if (parts == null) {
+      // WildcardPermission implies only other wildcard permissions
+      return permission instanceof WildcardPermission && impliesLinear(permission);
+    }
+    if (!isSingleValued(parts)) {
+      return impliesLinear(permission);
+    }
+    Node root = types().computeIfAbsent(value(parts.get(0)), this::compile);
+    return matches(root, parts, 1);
+  }
+
+  private boolean impliesLinear(Permission permission) {
+    for (Permission grant : indexedPermissions) {
+      if (grant.implies(permission)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean matches(Node node, List<Set<String>> parts, int index) {
+    if (node.end) {
+      // the grant has no more parts and implies everything below
+      return true;
+    }
+    if (index == parts.size()) {
+      // the request has no more parts, the remaining parts of the grant must be wildcards
+      return node.impliesRest;
+    }
+    Node child = node.children.get(value(parts.get(index)));
+    if (child != null && matches(child, parts, index + 1)) {
+      return true;
+    }
+    return node.wildcard != null && matches(node.wildcard, parts, index + 1);
+  }
+
+  private Node compile(String type) {
+    Node root = new Node();
+    for (List<Set<String>> parts : indexed) {
+      Set<String> typePart = parts.get(0);
+      if (typePart.contains(WILDCARD) || typePart.contains(type)) {
+        root.insert(parts, 1);
+      }
+    }
+    root.complete();
+    return root;
+  }
+
+  private ConcurrentMap<String, Node> types() {
+    ConcurrentMap<String, Node> t = types;
+    if (t == null) {
+      synchronized (this) {
+        t = types;
+        if (t == null) {
+          t = new ConcurrentHashMap<>();
+          types = t;
+        }
+      }
+    }
+    return t;
+  }
+
+  @Override
+  public String toString() {
+    return "PermissionIndex" + permissions;
+  }
+
+  /**
+   * Returns the parts of a permission with the semantic of {@link WildcardPermission#implies(Permission)} or
+   * {@code null}, if the permission could not be indexed.
+   */
+  static List<Set<String>> parts(Permission permission) {
+    if (permission instanceof TypedPermission) {
+      return ((TypedPermission) permission).getParts();
+    }
+    if (permission instanceof WildcardGrant) {
+      return ((WildcardGrant) permission).parts();
+    }
+    if (permission != null && permission.getClass() == WildcardPermission.class) {
+      // toString joins the already parsed parts, so splitting it again returns exactly the same parts
+      return split(permission.toString());
+    }
+    return null;
+  }
+
+  private static List<Set<String>> split(String permission) {
+    String[] values = permission.split(Constants.SEPARATOR);
+    List<Set<String>> parts = new ArrayList<>(values.length);
+    for (String value : values) {
+      parts.add(new LinkedHashSet<>(Arrays.asList(value.split(Constants.SEPERATOR_ACTION))));
+    }
+    return parts;
+  }
+
+  private static boolean isSingleValued(List<Set<String>> parts) {
+    for (Set<String> part : parts) {
+      if (part.size() != 1) {
+        return false;
+      }
+    }
+    return !parts.isEmpty();
+  }
+
+  private static String value(Set<String> part) {
+    return part.iterator().next();
+  }
+
+  private static final class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+    private Node wildcard;
+    private boolean end;
+    private boolean impliesRest;
+
+    private void insert(List<Set<String>> parts, int index) {
+      if (index == parts.size()) {
+        end = true;
+        return;
+      }
+      Set<String> part = parts.get(index);
+      if (part.contains(WILDCARD)) {
+        if (wildcard == null) {
+          wildcard = new Node();
+        }
+        wildcard.insert(parts, index + 1);
+      } else {
+        for (String value : part) {
+          children.computeIfAbsent(value, v -> new Node()).insert(parts, index + 1);
+        }
+      }
+    }
+
+    private boolean complete() {
+      for (Node child : children.values()) {
+        child.complete();
+      }
+      boolean wildcardImpliesRest = wildcard != null && wildcard.complete();
+      impliesRest = end || wildcardImpliesRest;
+      return impliesRest;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.subject.Subject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decisions of a subject for a list of objects and a list of actions, e.g. for the action links of the rows of a
+ * table. The decisions are stored in a single {@link BitSet} with one bit per object and action.
+ * <p>
+ * The subject and its grants are resolved only once for the whole matrix. Actions without guard are decided from the
+ * grants without asking the realm for every object, the ids are compared with the case rules of the permission
+ * resolvers of the grants. The realm is asked for objects, which could not be decided from the grants, and for all
+ * objects, if a realm could decide differently than its grants. Guards are asked with the decisions for all objects of their action.
+ *
+ * @author Sebastian Sdorra
+ * @param <T> permission object type
+ */
+public final class PermissionMatrix<T extends PermissionObject> {
+
+  private final int size;
+  private final List<String> actions;
+  private final BitSet decisions;
+
+  private PermissionMatrix(int size, List<String> actions, BitSet decisions) {
+    this.size = size;
+    this.actions = actions;
+    this.decisions = decisions;
+  }
+
+  /**
+   * Creates the matrix of the current authenticated user for the objects and actions.
+   *
+   * @param items permission objects
+   * @param checks action checks
+   * @param <T> permission object type
+   *
+   * @return permission matrix
+   */
+  @SafeVarargs
+  public static <T extends PermissionObject> PermissionMatrix<T> of(Collection<T> items, PermissionActionCheck<T>... checks) {
+    return of(items, Arrays.asList(checks));
+  }
+
+  /**
+   * Creates the matrix of the current authenticated user for the objects and actions.
+   *
+   * @param items permission objects
+   * @param checks action checks
+   * @param <T> permission object type
+   *
+   * @return permission matrix
+   */
+  public static <T extends PermissionObject> PermissionMatrix<T> of(Collection<T> items, List<PermissionActionCheck<T>> checks) {
+    PermissionContext context = PermissionContext.current();
+    return of(context != null ? context.getSubject() : SubjectScope.current(), items, checks);
+  }
+
+  /**
+   * Creates the matrix of the given subject for the objects and actions.
+   *
+   * @param subject subject to check
+   * @param items permission objects
+   * @param checks action checks
+   * @param <T> permission object type
+   *
+   * @return permission matrix
+   */
+  public static <T extends PermissionObject> PermissionMatrix<T> of(Subject subject, Collection<T> items, List<PermissionActionCheck<T>> checks) {
+    List<String> ids = new ArrayList<>(items.size());
+    for (T item : items) {
+      ids.add(item.getId() == null ? "" : item.getId());
+    }
+    List<Permission> grants = checks.isEmpty() ? null : Grants.of(subject);
+    List<String> actions = new ArrayList<>(checks.size());
+    BitSet decisions = new BitSet(ids.size() * checks.size());
+    for (int action = 0; action < checks.size(); action++) {
+      PermissionActionCheck<T> check = checks.get(action).forSubject(subject);
+      TypedPermission permission = check.getPermission();
+      actions.add(permission.getAction());
+      BitSet permitted = check.intercept(items, isPermitted(subject, permission, ids, grants));
+      for (int item = permitted.nextSetBit(0); item >= 0; item = permitted.nextSetBit(item + 1)) {
+        decisions.set(item * checks.size() + action);
+      }
+    }
+    return new PermissionMatrix<>(ids.size(), Collections.unmodifiableList(actions), decisions);
+  }
+
+  private static BitSet isPermitted(Subject subject, TypedPermission permission, List<String> ids, List<Permission> grants) {
+    PermittedIds permittedIds = grants != null ? PermittedIds.of(permission, grants, false) : null;
+    if (permittedIds == null || permittedIds.isPostFilterRequired()) {
+      return DecisionCaches.isPermitted(subject, permission, ids);
+    }
+    BitSet permitted = new BitSet(ids.size());
+    List<String> unresolved = new ArrayList<>();
+    List<Integer> unresolvedIndexes = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i++) {
+      String id = ids.get(i);
+      if (!TypedPermission.isSimple(id)) {
+        // ids with separators or surrounding whitespace are split by shiro
+        unresolved.add(id);
+        unresolvedIndexes.add(i);
+      } else if (permittedIds.isPermitted(id)) {
+        permitted.set(i);
+      }
+    }
+    if (!unresolved.isEmpty()) {
+      BitSet resolved = DecisionCaches.isPermitted(subject, permission, unresolved);
+      for (int i = resolved.nextSetBit(0); i >= 0; i = resolved.nextSetBit(i + 1)) {
+        permitted.set(unresolvedIndexes.get(i));
+      }
+    }
+    return permitted;
+  }
+
+  /**
+   * Returns the number of objects.
+   *
+   * @return number of objects
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the actions of the matrix in the order of their index.
+   *
+   * @return actions
+   */
+  public List<String> getActions() {
+    return actions;
+  }
+
+  /**
+   * Returns {@code true} if the action with the given index is permitted for the object with the given index.
+   *
+   * @param item index of the object in iteration order of the collection
+   * @param action index of the action
+   *
+   * @return {@code true} if permitted
+   */
+  public boolean isPermitted(int item, int action) {
+    if (item < 0 || item >= size || action < 0 || action >= actions.size()) {
+      throw new IndexOutOfBoundsException("no decision for item " + item + " and action " + action);
+    }
+    return decisions.get(item * actions.size() + action);
+  }
+
+  /**
+   * Returns {@code true} if the action is permitted for the object with the given index.
+   *
+   * @param item index of the object in iteration order of the collection
+   * @param action name of the action
+   *
+   * @return {@code true} if permitted
+   */
+  public boolean isPermitted(int item, String action) {
+    int index = actions.indexOf(action);
+    if (index < 0) {
+      throw new IllegalArgumentException("action " + action + " is not part of the matrix");
+    }
+    return isPermitted(item, index);
+  }
+
+  @Override
+  public String toString() {
+    return "PermissionMatrix{size=" + size + ", actions=" + actions + ", decisions=" + decisions + "}";
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.ssp.PermissionCheckMetrics.Outcome;
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.Permission;
+
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registry for the {@link PermissionCheckMetrics} of the application. As long as no metrics are registered, a check
+ * costs only a single read of a volatile field, it neither reads the clock nor allocates.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PermissionMetrics {
+
+  private static volatile PermissionCheckMetrics metrics;
+
+  private PermissionMetrics() {
+  }
+
+  /**
+   * Registers the metrics, which are notified about every permission check. A previously registered instance is
+   * replaced.
+   *
+   * @param permissionCheckMetrics metrics to register
+   */
+  public static void register(PermissionCheckMetrics permissionCheckMetrics) {
+    metrics = Objects.requireNonNull(permissionCheckMetrics, "metrics are required");
+  }
+
+  /**
+   * Removes the registered metrics.
+   */
+  public static void unregister() {
+    metrics = null;
+  }
+
+  /**
+   * Returns the registered metrics or {@code null}.
+   *
+   * @return registered metrics or {@code null}
+   */
+  static PermissionCheckMetrics current() {
+    return metrics;
+  }
+
+  static void check(PermissionCheckMetrics metrics, Permission permission, Runnable check) {
+    long start = System.nanoTime();
+    try {
+      check.run();
+      metrics.record(permission, Outcome.GRANTED, System.nanoTime() - start);
+    } catch (AuthorizationException ex) {
+      metrics.record(permission, Outcome.DENIED, System.nanoTime() - start);
+      throw ex;
+    } catch (RuntimeException ex) {
+      metrics.record(permission, Outcome.EXCEPTION, System.nanoTime() - start);
+      throw ex;
+    }
+  }
+
+  static boolean isPermitted(PermissionCheckMetrics metrics, Permission permission, BooleanSupplier check) {
+    long start = System.nanoTime();
+    try {
+      boolean permitted = check.getAsBoolean();
+      Outcome outcome = permitted ? Outcome.GRANTED : Outcome.DENIED;
+      metrics.record(permission, outcome, System.nanoTime() - start);
+      return permitted;
+    } catch (RuntimeException ex) {
+      metrics.record(permission, Outcome.EXCEPTION, System.nanoTime() - start);
+      throw ex;
+    }
+  }
+
+  static BitSet isPermitted(PermissionCheckMetrics metrics, Permission permission, int size, Supplier<BitSet> check) {
+    long start = System.nanoTime();
+    try {
+      BitSet permitted = check.get();
+      int granted = permitted.cardinality();
+      metrics.recordBatch(permission, granted, size - granted, System.nanoTime() - start);
+      return permitted;
+    } catch (RuntimeException ex) {
+      metrics.record(permission, Outcome.EXCEPTION, System.nanoTime() - start);
+      throw ex;
+    }
+  }
+
+  static void check(PermissionCheckMetrics metrics, Permission permission, int size, Runnable check) {
+    long start = System.nanoTime();
+    try {
+      check.run();
+      metrics.recordBatch(permission, size, 0, System.nanoTime() - start);
+    } catch (BulkAuthorizationException ex) {
+      int denied = ex.getDenied().cardinality();
+      metrics.recordBatch(permission, size - denied, denied, System.nanoTime() - start);
+      throw ex;
+    } catch (RuntimeException ex) {
+      metrics.record(permission, Outcome.EXCEPTION, System.nanoTime() - start);
+      throw ex;
+    }
+  }
+
+  /**
+   * Measures an asynchronous check until the returned future is completed.
+   *
+   * @param metrics registered metrics
+   * @param permission permission of the check
+   * @param check asynchronous check
+   *
+   * @return future decision
+   */
+  static CompletableFuture<Boolean> isPermittedAsync(PermissionCheckMetrics metrics, Permission permission,
+                                                     Supplier<CompletableFuture<Boolean>> check) {
+    long start = System.nanoTime();
+    return check.get().whenComplete((permitted, failure) -> {
+      Outcome outcome = failure != null ? outcome(failure) : (permitted ? Outcome.GRANTED : Outcome.DENIED);
+      metrics.record(permission, outcome, System.nanoTime() - start);
+    });
+  }
+
+  /**
+   * Measures an asynchronous check, which fails if the permission is not granted, until the returned future is
+   * completed.
+   *
+   * @param metrics registered metrics
+   * @param permission permission of the check
+   * @param check asynchronous check
+   *
+   * @return future of the check
+   */
+  static CompletableFuture<Void> checkAsync(PermissionCheckMetrics metrics, Permission permission,
+                                            Supplier<CompletableFuture<Void>> check) {
+    long start = System.nanoTime();
+    return check.get().whenComplete((result, failure) -> {
+      Outcome outcome = failure != null ? outcome(failure) : Outcome.GRANTED;
+      metrics.record(permission, outcome, System.nanoTime() - start);
+    });
+  }
+
+  private static Outcome outcome(Throwable failure) {
+    Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    return cause instanceof AuthorizationException ? Outcome.DENIED : Outcome.EXCEPTION;
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.AllPermission;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The ids of objects, for which a subject has the permission of an action. The result could be used to filter
+ * objects in a database query instead of checking every loaded object: if {@link #isAll()} returns {@code true} the
+ * query needs no filter, otherwise it could be restricted to the ids of {@link #getIds()}. If
+ * {@link #isPostFilterRequired()} returns {@code true}, the action is guarded or not all grants could be analyzed
+ * and the loaded objects must still be checked with {@link PermissionActionCheck#isPermitted(PermissionObject)}.
+ * <p>
+ * The ids are returned in the case of the granted permission strings. Shiro compares permissions case-insensitive
+ * by default, in this case objects with ids, which differ only in case from the returned ids, are permitted as well.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PermittedIds {
+
+  private static final String WILDCARD = "*";
+
+  private static final int NONE = -1;
+  private static final int ALL = -2;
+
+  private final boolean all;
+  private final Set<String> ids;
+  private final Set<String> comparedIds;
+  private final boolean postFilterRequired;
+
+  private PermittedIds(boolean all, Set<String> ids, Set<String> comparedIds, boolean postFilterRequired) {
+    this.all = all;
+    this.ids = ids;
+    this.comparedIds = comparedIds;
+    this.postFilterRequired = postFilterRequired;
+  }
+
+  private static PermittedIds all(boolean postFilterRequired) {
+    return new PermittedIds(true, Collections.emptySet(), Collections.emptySet(), postFilterRequired);
+  }
+
+  /**
+   * Resolves the permitted ids of the permission from the grants.
+   *
+   * @param permission permission with type and action
+   * @param grants granted permissions of the subject or {@code null} if the grants are unknown
+   * @param guarded {@code true} if the action is guarded
+   *
+   * @return permitted ids
+   */
+  static PermittedIds of(TypedPermission permission, List<Permission> grants, boolean guarded) {
+    if (grants == null) {
+      return all(true);
+    }
+    List<Set<String>> prefix = permission.getParts();
+    Set<String> ids = new LinkedHashSet<>();
+    Set<String> comparedIds = new HashSet<>();
+    boolean unknown = false;
+    for (Permission grant : grants) {
+      if (grant instanceof AllPermission) {
+        return all(guarded);
+      }
+      List<Set<String>> parts = PermissionIndex.parts(grant);
+      if (parts == null) {
+        unknown = true;
+        continue;
+      }
+      int idIndex = match(prefix, parts);
+      if (idIndex == ALL) {
+        return all(guarded);
+      } else if (idIndex != NONE) {
+        collect(grant, parts, idIndex, ids, comparedIds);
+      }
+    }
+    if (unknown) {
+      // grants of other permission types could imply any id
+      return all(true);
+    }
+    return new PermittedIds(false, Collections.unmodifiableSet(ids), comparedIds, guarded);
+  }
+
+  /**
+   * Returns {@code true} if the grants imply the permission for any object. Grants of other permission types are
+   * asked, if they imply the permission without id.
+   *
+   * @param permission permission with type and action
+   * @param grants granted permissions of the subject
+   *
+   * @return {@code true} if any object is permitted
+   */
+  static boolean isAny(TypedPermission permission, List<Permission> grants) {
+    List<Set<String>> prefix = permission.getParts();
+    Set<String> ids = new LinkedHashSet<>();
+    Set<String> comparedIds = new HashSet<>();
+    for (Permission grant : grants) {
+      List<Set<String>> parts = PermissionIndex.parts(grant);
+      if (parts == null) {
+        if (grant.implies(permission)) {
+          return true;
+        }
+        continue;
+      }
+      int idIndex = match(prefix, parts);
+      if (idIndex == ALL) {
+        return true;
+      } else if (idIndex != NONE) {
+        collect(grant, parts, idIndex, ids, comparedIds);
+        if (!comparedIds.isEmpty()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the index of the id part of the grant, {@link #ALL} if the grant implies all ids or {@link #NONE} if the
+   * grant implies no id.
+   */
+  private static int match(List<Set<String>> prefix, List<Set<String>> parts) {
+    int idIndex = prefix.size();
+    for (int i = 0; i < idIndex; i++) {
+      if (i == parts.size()) {
+        // the grant ends before the id and implies everything below
+        return ALL;
+      }
+      Set<String> part = parts.get(i);
+      if (!part.contains(WILDCARD) && !part.containsAll(prefix.get(i))) {
+        return NONE;
+      }
+    }
+    if (parts.size() == idIndex) {
+      return ALL;
+    }
+    for (int i = idIndex + 1; i < parts.size(); i++) {
+      if (!parts.get(i).contains(WILDCARD)) {
+        // the grant is more specific than a permission for an id
+        return NONE;
+      }
+    }
+    return parts.get(idIndex).contains(WILDCARD) ? ALL : idIndex;
+  }
+
+  /**
+   * Collects the ids of the id part of a grant.
+   */
+  private static void collect(Permission grant, List<Set<String>> parts, int idIndex, Set<String> ids, Set<String> comparedIds) {
+    if (grant instanceof WildcardGrant) {
+      for (String id : ((WildcardGrant) grant).getGrantedParts().get(idIndex)) {
+        ids.add(id);
+        comparedIds.add(id.toLowerCase());
+      }
+    } else {
+      for (String id : parts.get(idIndex)) {
+        // the realm compares the part with the lower cased id of the typed permission
+        if (id.equals(id.toLowerCase())) {
+          ids.add(id);
+          comparedIds.add(id);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if the grants imply the permission for the object with the given id. The id is compared
+   * case insensitive like a {@link TypedPermission}. The result is only correct for ids, which are not split by
+   * shiro, see {@link TypedPermission#isSimple(String)}, and if no post filter is required.
+   *
+   * @param id id of permission object
+   *
+   * @return {@code true} if permitted
+   */
+  boolean isPermitted(String id) {
+    return all || comparedIds.contains(id.toLowerCase());
+  }
+
+  /**
+   * Returns {@code true} if the permission is granted for all objects.
+   *
+   * @return {@code true} for all objects
+   */
+  public boolean isAll() {
+    return all;
+  }
+
+  /**
+   * Returns {@code true} if the permission is granted for no object.
+   *
+   * @return {@code true} for no object
+   */
+  public boolean isEmpty() {
+    return !all && ids.isEmpty();
+  }
+
+  /**
+   * Returns the ids of the objects, for which the permission is granted. The set is empty if the permission is
+   * granted for all objects.
+   *
+   * @return permitted ids
+   */
+  public Set<String> getIds() {
+    return ids;
+  }
+
+  /**
+   * Returns {@code true} if the objects must be checked after they were loaded, because the action is guarded or the
+   * ids could not be resolved from all grants.
+   *
+   * @return {@code true} if post filtering is required
+   */
+  public boolean isPostFilterRequired() {
+    return postFilterRequired;
+  }
+
+  @Override
+  public String toString() {
+    return "PermittedIds{all=" + all + ", ids=" + ids + ", postFilterRequired=" + postFilterRequired + "}";
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterator which returns only the permitted elements of a source iterator. The elements are pulled lazily in chunks
+ * and each chunk is evaluated as one batch. The first chunk is small, so that short-circuiting operations like
+ * {@code findFirst} stop early, the following chunks grow up to {@link #MAX_CHUNK_SIZE}.
+ *
+ * @author Sebastian Sdorra
+ * @param <E> element type
+ */
+final class PermittedIterator<E> implements Iterator<E> {
+
+  static final int MIN_CHUNK_SIZE = 16;
+  static final int MAX_CHUNK_SIZE = 1024;
+
+  private final Iterator<E> source;
+  private final Function<List<E>, BitSet> evaluator;
+
+  private int chunkSize = MIN_CHUNK_SIZE;
+  private List<E> chunk;
+  private BitSet permitted;
+  private int position;
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param source source iterator
+   * @param evaluator evaluates a chunk and returns the indexes of the permitted elements
+   */
+  PermittedIterator(Iterator<E> source, Function<List<E>, BitSet> evaluator) {
+    this.source = source;
+    this.evaluator = evaluator;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (true) {
+      if (permitted != null) {
+        int next = permitted.nextSetBit(position);
+        if (next >= 0) {
+          position = next;
+          return true;
+        }
+      }
+      if (!source.hasNext()) {
+        return false;
+      }
+      fill();
+    }
+  }
+
+  @Override
+  public E next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return chunk.get(position++);
+  }
+
+  private void fill() {
+    chunk = new ArrayList<>(chunkSize);
+    while (chunk.size() < chunkSize && source.hasNext()) {
+      chunk.add(source.next());
+    }
+    permitted = evaluator.apply(chunk);
+    position = 0;
+    chunkSize = Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.ssp.PermissionCheckMetrics.Outcome;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Exports {@link PermissionCheckCounters} in the plain text format of Prometheus. The output can be served by any
+ * http endpoint or written to a file, no Prometheus client library is required.
+ * <p>
+ * Two metrics are written: the counter {@code <prefix>_total} with the labels {@code type}, {@code action} and
+ * {@code outcome} and the histogram {@code <prefix>_duration_seconds} with the labels {@code type} and
+ * {@code action}.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class PrometheusMetricsExporter implements PermissionMetricsExporter {
+
+  /** default prefix of the metric names */
+  public static final String DEFAULT_PREFIX = "ssp_permission_checks";
+
+  private final String prefix;
+
+  /**
+   * Constructs a new exporter with the {@link #DEFAULT_PREFIX}.
+   */
+  public PrometheusMetricsExporter() {
+    this(DEFAULT_PREFIX);
+  }
+
+  /**
+   * Constructs a new exporter.
+   *
+   * @param prefix prefix of the metric names
+   */
+  public PrometheusMetricsExporter(String prefix) {
+    this.prefix = prefix;
+  }
+
+  @Override
+  public void export(PermissionCheckCounters counters, Appendable output) throws IOException {
+    Collection<PermissionCheckCounters.Counter> snapshot = counters.getCounters();
+
+    String total = prefix + "_total";
+    output.append("# HELP ").append(total).append(" Number of permission checks by outcome.\n");
+    output.append("# TYPE ").append(total).append(" counter\n");
+    for (PermissionCheckCounters.Counter counter : snapshot) {
+      for (Outcome outcome : Outcome.values()) {
+        output.append(total);
+        labels(output, counter).append(",outcome=\"").append(outcome.name().toLowerCase(Locale.ENGLISH)).append("\"} ");
+        output.append(Long.toString(counter.getCount(outcome))).append('\n');
+      }
+    }
+
+    String duration = prefix + "_duration_seconds";
+    output.append("# HELP ").append(duration).append(" Duration of permission checks.\n");
+    output.append("# TYPE ").append(duration).append(" histogram\n");
+    for (PermissionCheckCounters.Counter counter : snapshot) {
+      LatencyHistogram latency = counter.getLatency();
+      long cumulative = 0;
+      for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+        cumulative += latency.getBucketCount(i);
+        long bound = LatencyHistogram.getBucketBound(i);
+        output.append(duration).append("_bucket");
+        labels(output, counter).append(",le=\"").append(bound == Long.MAX_VALUE ? "+Inf" : seconds(bound)).append("\"} ");
+        output.append(Long.toString(cumulative)).append('\n');
+      }
+      output.append(duration).append("_sum");
+      labels(output, counter).append("} ").append(seconds(latency.getSum())).append('\n');
+      output.append(duration).append("_count");
+      labels(output, counter).append("} ").append(Long.toString(cumulative)).append('\n');
+    }
+  }
+
+  private Appendable labels(Appendable output, PermissionCheckCounters.Counter counter) throws IOException {
+    output.append("{type=\"").append(escape(counter.getType())).append('"');
+    output.append(",action=\"").append(escape(counter.getAction())).append('"');
+    return output;
+  }
+
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+
+  private static String escape(String value) {
+    if (value == null) {
+      return "";
+    }
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.PermissionResolver;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.mgt.AuthorizingSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.DelegatingSubject;
+
+import java.util.Collection;
+
+/**
+ * Passes permissions to the realms of a subject. A {@link TypedPermission} has the semantic of a permission string,
+ * which is resolved by the default case insensitive {@link WildcardPermissionResolver}. It is passed as object only,
+ * if every realm of the subject resolves its permission strings with such a resolver. Otherwise the permission string
+ * is passed, so that the realms resolve it with their own {@link PermissionResolver}, e.g. case sensitive or to
+ * permission types of the domain.
+ *
+ * @author Sebastian Sdorra
+ */
+final class RealmPermissions {
+
+  private RealmPermissions() {
+  }
+
+  /**
+   * Returns {@code true} if the realms of the subject resolve permission strings exactly like a
+   * {@link TypedPermission}.
+   *
+   * @param subject subject
+   *
+   * @return {@code true} if typed permissions could be passed as object
+   */
+  static boolean isTyped(Subject subject) {
+    if (!(subject instanceof DelegatingSubject)) {
+      return false;
+    }
+    SecurityManager securityManager = ((DelegatingSubject) subject).getSecurityManager();
+    if (!(securityManager instanceof AuthorizingSecurityManager)) {
+      return false;
+    }
+    Authorizer authorizer = ((AuthorizingSecurityManager) securityManager).getAuthorizer();
+    if (!(authorizer instanceof ModularRealmAuthorizer)) {
+      return false;
+    }
+    Collection<Realm> realms = ((ModularRealmAuthorizer) authorizer).getRealms();
+    if (realms == null) {
+      return true;
+    }
+    for (Realm realm : realms) {
+      if (realm instanceof AuthorizingRealm) {
+        if (!isDefault(((AuthorizingRealm) realm).getPermissionResolver())) {
+          return false;
+        }
+      } else if (realm instanceof Authorizer) {
+        // the realm could treat strings and objects differently
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDefault(PermissionResolver resolver) {
+    return resolver != null
+      && resolver.getClass() == WildcardPermissionResolver.class
+      && !((WildcardPermissionResolver) resolver).isCaseSensitive();
+  }
+
+  /**
+   * Returns {@code true} if the subject has the permission.
+   *
+   * @param subject subject to check
+   * @param permission permission including the id of the object
+   *
+   * @return {@code true} if the permission is granted
+   */
+  static boolean isPermitted(Subject subject, Permission permission) {
+    if (isString(subject, permission)) {
+      return subject.isPermitted(permission.toString());
+    }
+    return subject.isPermitted(permission);
+  }
+
+  /**
+   * Checks the permission of the subject and throws an exception, if it is not granted.
+   *
+   * @param subject subject to check
+   * @param permission permission including the id of the object
+   */
+  static void checkPermission(Subject subject, Permission permission) {
+    if (isString(subject, permission)) {
+      subject.checkPermission(permission.toString());
+    } else {
+      subject.checkPermission(permission);
+    }
+  }
+
+  /**
+   * Returns {@code true} if the permission must be passed as string to the realms of the subject.
+   *
+   * @param subject subject
+   * @param permission permission
+   *
+   * @return {@code true} if the string must be passed
+   */
+  static boolean isString(Subject subject, Permission permission) {
+    return permission instanceof StringPermission || (permission instanceof TypedPermission && !isTyped(subject));
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Callable;
+
+/**
+ * Binds a subject for the permission checks of a scope. The generated checks, {@link PermissionCheck},
+ * {@link PermissionActionCheck} and {@link PermissionContext#open()} resolve the subject with {@link #current()}.
+ * <p>
+ * On Java 25 and newer, where {@code java.lang.ScopedValue} is a final api, the subject is bound only to a scoped
+ * value, which is inherited by structured child tasks without copying thread local maps. Guards get the subject as
+ * parameter, code which calls {@link SecurityUtils#getSubject()} inside the scope has to be wrapped with
+ * {@link Subject#associateWith(Runnable)}. Older runtimes bind the subject to the
+ * {@link org.apache.shiro.util.ThreadContext} of shiro for the duration of the scope. The preview versions of
+ * {@code ScopedValue} in older runtimes are never used.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class SubjectScope {
+
+  private static final int SCOPED_VALUE_VERSION = 25;
+
+  private static final Object SUBJECT;
+  private static final MethodHandle WHERE;
+  private static final MethodHandle RUN;
+  private static final MethodHandle IS_BOUND;
+  private static final MethodHandle GET;
+
+  static {
+    Object subject = null;
+    MethodHandle where = null;
+    MethodHandle run = null;
+    MethodHandle isBound = null;
+    MethodHandle get = null;
+    if (featureVersion() >= SCOPED_VALUE_VERSION) {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+        Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+        // the types are erased to object, so that the handles can be called with invokeExact
+        where = lookup.findStatic(scopedValue, "where", MethodType.methodType(carrier, scopedValue, Object.class))
+          .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+        run = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class))
+          .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+        isBound = lookup.findVirtual(scopedValue, "isBound", MethodType.methodType(boolean.class))
+          .asType(MethodType.methodType(boolean.class, Object.class));
+        get = lookup.findVirtual(scopedValue, "get", MethodType.methodType(Object.class))
+          .asType(MethodType.methodType(Object.class, Object.class));
+        subject = lookup.findStatic(scopedValue, "newInstance", MethodType.methodType(scopedValue)).invoke();
+      } catch (Throwable ex) {
+        subject = null;
+      }
+    }
+    SUBJECT = subject;
+    WHERE = where;
+    RUN = run;
+    IS_BOUND = isBound;
+    GET = get;
+  }
+
+  private SubjectScope() {
+  }
+
+  /**
+   * Returns {@code true} if the subject is bound to a scoped value on this runtime.
+   *
+   * @return {@code true} if scoped values are used
+   */
+  public static boolean isScopedValueSupported() {
+    return SUBJECT != null;
+  }
+
+  /**
+   * Runs the task with the subject bound for the permission checks.
+   *
+   * @param subject subject for the scope
+   * @param task task to run
+   */
+  public static void run(Subject subject, Runnable task) {
+    if (SUBJECT == null) {
+      subject.associateWith(task).run();
+      return;
+    }
+    try {
+      RUN.invokeExact((Object) WHERE.invokeExact(SUBJECT, (Object) subject), task);
+    } catch (RuntimeException | Error ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      throw new IllegalStateException("failed to bind subject to scoped value", ex);
+    }
+  }
+
+  /**
+   * Calls the task with the subject bound for the permission checks.
+   *
+   * @param subject subject for the scope
+   * @param task task to call
+   * @param <V> result type
+   *
+   * @return result of the task
+   *
+   * @throws Exception exception of the task
+   */
+  @SuppressWarnings("unchecked")
+  public static <V> V call(Subject subject, Callable<V> task) throws Exception {
+    if (SUBJECT == null) {
+      return subject.associateWith(task).call();
+    }
+    // the task is passed as runnable, because Carrier.call declares a type parameter for the exception
+    Object[] result = new Object[1];
+    Exception[] failure = new Exception[1];
+    run(subject, () -> {
+      try {
+        result[0] = task.call();
+      } catch (Exception ex) {
+        failure[0] = ex;
+      }
+    });
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+    return (V) result[0];
+  }
+
+  /**
+   * Returns the subject of the current scope or the subject of {@link SecurityUtils}, if no subject is bound.
+   *
+   * @return current subject
+   */
+  public static Subject current() {
+    if (SUBJECT != null) {
+      try {
+        if ((boolean) IS_BOUND.invokeExact(SUBJECT)) {
+          return (Subject) (Object) GET.invokeExact(SUBJECT);
+        }
+      } catch (RuntimeException | Error ex) {
+        throw ex;
+      } catch (Throwable ex) {
+        throw new IllegalStateException("failed to read subject from scoped value", ex);
+      }
+    }
+    return SecurityUtils.getSubject();
+  }
+
+  private static int featureVersion() {
+    // java 8 reports 1.8, newer runtimes only their feature version
+    String version = System.getProperty("java.specification.version", "1.8");
+    if (version.startsWith("1.")) {
+      version = version.substring(2);
+    }
+    int dot = version.indexOf('.');
+    try {
+      return Integer.parseInt(dot > 0 ? version.substring(0, dot) : version);
+    } catch (NumberFormatException ex) {
+      return 0;
+    }
+  }
+}
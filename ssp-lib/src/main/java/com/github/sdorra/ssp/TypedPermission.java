@@ -0,0 +1,272 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.permission.WildcardPermission;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Structured shiro permission, which holds type, action and id as separate fields. In contrast to a
+ * {@link WildcardPermission} created from a string, the permission is never concatenated and parsed again. The
+ * lower cased parts of type and action are computed once and shared between all permissions created with
+ * {@link #withId(String)}, the part of the id is computed lazily when a wildcard grant compares against it.
+ * <p>
+ * The parts are compared case insensitive like a permission string, which is resolved by the default
+ * {@link org.apache.shiro.authz.permission.WildcardPermissionResolver}. The permission is only passed as object to
+ * realms with such a resolver, other realms get the {@link #toString()} representation and resolve it with their own
+ * resolver.
+ *
+ * @author Sebastian Sdorra
+ */
+public final class TypedPermission extends WildcardPermission {
+
+  private static final long serialVersionUID = 4963725135532412391L;
+
+  private final String type;
+  private final String action;
+  private final String id;
+
+  private final Set<String> typePart;
+  private final Set<String> actionPart;
+
+  private transient List<Set<String>> parts;
+  private transient PermissionDecision granted;
+  private transient PermissionDecision denied;
+
+  /**
+   * Constructs a new global permission.
+   *
+   * @param type type of permission
+   * @param action permission action
+   */
+  public TypedPermission(String type, String action) {
+    this(type, action, null, part(type), part(action));
+  }
+
+  /**
+   * Constructs a new permission for the object with the given id.
+   *
+   * @param type type of permission
+   * @param action permission action
+   * @param id id of permission object
+   */
+  public TypedPermission(String type, String action, String id) {
+    this(type, action, nullToEmpty(id), part(type), part(action));
+  }
+
+  private TypedPermission(String type, String action, String id, Set<String> typePart, Set<String> actionPart) {
+    this.type = type;
+    this.action = action;
+    this.id = id;
+    this.typePart = typePart;
+    this.actionPart = actionPart;
+  }
+
+  /**
+   * Creates a permission from a typed action string like {@code repository:read}. The string is split only once,
+   * the returned permission should be reused for all checks of the action.
+   *
+   * @param typedAction type and action separated by {@link Constants#SEPARATOR}
+   *
+   * @return permission for the typed action
+   */
+  static TypedPermission fromTypedAction(String typedAction) {
+    int index = typedAction.indexOf(Constants.SEPARATOR);
+    if (index < 0) {
+      return new TypedPermission(typedAction, null, null, part(typedAction), null);
+    }
+    String type = typedAction.substring(0, index);
+    String action = typedAction.substring(index + 1);
+    return new TypedPermission(type, action, null, part(type), part(action));
+  }
+
+  /**
+   * Returns a permission with the same type and action for the object with the given id.
+   *
+   * @param id id of permission object
+   *
+   * @return permission for the given id
+   */
+  public TypedPermission withId(String id) {
+    return new TypedPermission(type, action, nullToEmpty(id), typePart, actionPart);
+  }
+
+  /**
+   * Returns the preallocated decision of this permission.
+   *
+   * @param permitted {@code true} for the granted decision
+   *
+   * @return decision of this permission
+   */
+  PermissionDecision decision(boolean permitted) {
+    PermissionDecision decision = permitted ? granted : denied;
+    if (decision == null) {
+      decision = new PermissionDecision(type, action, id, permitted);
+      if (permitted) {
+        granted = decision;
+      } else {
+        denied = decision;
+      }
+    }
+    return decision;
+  }
+
+  /**
+   * Returns the type of the permission.
+   *
+   * @return permission type
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Returns the action of the permission.
+   *
+   * @return permission action
+   */
+  public String getAction() {
+    return action;
+  }
+
+  /**
+   * Returns the id of the permission object or {@code null} for global permissions.
+   *
+   * @return id of permission object or {@code null}
+   */
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  protected List<Set<String>> getParts() {
+    List<Set<String>> p = parts;
+    if (p == null) {
+      p = createParts();
+      parts = p;
+    }
+    return p;
+  }
+
+  private List<Set<String>> createParts() {
+    boolean simple = typePart != null && (action == null || actionPart != null) && (id == null || isSimple(id));
+    if (!simple) {
+      return parse(toString());
+    }
+    int size = 1 + (action != null ? 1 : 0) + (id != null ? 1 : 0);
+    @SuppressWarnings("unchecked")
+    Set<String>[] array = new Set[size];
+    int i = 0;
+    array[i++] = typePart;
+    if (action != null) {
+      array[i++] = actionPart;
+    }
+    if (id != null) {
+      array[i] = Collections.singleton(id.toLowerCase());
+    }
+    return Arrays.asList(array);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof TypedPermission)) {
+      return false;
+    }
+    return getParts().equals(((TypedPermission) obj).getParts());
+  }
+
+  @Override
+  public int hashCode() {
+    return getParts().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buffer = new StringBuilder(type);
+    if (action != null) {
+      buffer.append(Constants.SEPARATOR).append(action);
+    }
+    if (id != null) {
+      buffer.append(Constants.SEPARATOR).append(id);
+    }
+    return buffer.toString();
+  }
+
+  private static Set<String> part(String value) {
+    if (value == null || !isSimple(value)) {
+      return null;
+    }
+    return Collections.singleton(value.toLowerCase());
+  }
+
+  /**
+   * Returns {@code true} if the value could be used as single part without splitting or trimming.
+   */
+  static boolean isSimple(String value) {
+    int length = value.length();
+    return length > 0
+      && value.charAt(0) > ' '
+      && value.charAt(length - 1) > ' '
+      && value.indexOf(Constants.SEPARATOR) < 0
+      && value.indexOf(Constants.SEPERATOR_ACTION) < 0;
+  }
+
+  /**
+   * Splits the permission string exactly as {@link WildcardPermission} does.
+   */
+  private static List<Set<String>> parse(String permission) {
+    String value = permission.trim();
+    if (value.isEmpty()) {
+      throw new IllegalArgumentException("Wildcard string cannot be null or empty. Make sure permission strings are properly formatted.");
+    }
+    String[] values = value.toLowerCase().split(Constants.SEPARATOR);
+    @SuppressWarnings("unchecked")
+    Set<String>[] array = new Set[values.length];
+    for (int i = 0; i < values.length; i++) {
+      String[] subparts = values[i].split(Constants.SEPERATOR_ACTION);
+      if (subparts.length == 0) {
+        throw new IllegalArgumentException("Wildcard string cannot contain parts with only dividers. Make sure permission strings are properly formatted.");
+      }
+      array[i] = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(subparts)));
+    }
+    if (array.length == 0) {
+      throw new IllegalArgumentException("Wildcard string cannot contain only dividers. Make sure permission strings are properly formatted.");
+    }
+    return Collections.unmodifiableList(Arrays.asList(array));
+  }
+
+  private static String nullToEmpty(String id) {
+    return id == null ? "" : id;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.permission.WildcardPermission;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wildcard permission, which was resolved from a granted permission string. The permission implies exactly the same
+ * permissions as a {@link WildcardPermission} of the string, but it keeps the parts of the string in their original
+ * case, because a case insensitive permission lower cases its parts.
+ *
+ * @author Sebastian Sdorra
+ */
+final class WildcardGrant extends WildcardPermission {
+
+  private static final long serialVersionUID = -2178466390530123645L;
+
+  private final List<Set<String>> grantedParts;
+
+  /**
+   * Constructs a new case insensitive instance.
+   *
+   * @param wildcardString granted permission string
+   */
+  WildcardGrant(String wildcardString) {
+    super(wildcardString);
+    this.grantedParts = new WildcardGrant(wildcardString, true).getParts();
+  }
+
+  private WildcardGrant(String wildcardString, boolean caseSensitive) {
+    super(wildcardString, caseSensitive);
+    this.grantedParts = getParts();
+  }
+
+  /**
+   * Returns the parts, which are compared with the parts of other permissions.
+   *
+   * @return compared parts
+   */
+  List<Set<String>> parts() {
+    return getParts();
+  }
+
+  /**
+   * Returns the parts in the case of the granted permission string.
+   *
+   * @return granted parts
+   */
+  List<Set<String>> getGrantedParts() {
+    return grantedParts;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+
+/**
+ * Factory for {@link CheckTrace}s, which emits a {@link PermissionCheckEvent} for every traced check. A trace is only
+ * created while the event is enabled in a running flight recording, otherwise the check is not traced at all.
+ *
+ * @author Sebastian Sdorra
+ */
+final class CheckTraces {
+
+  /**
+   * {@link PermissionCheckEvent#isEnabled()} depends only on the event class and the settings of the recordings, so a
+   * shared instance answers it and disabled checks do not allocate an event.
+   */
+  private static final PermissionCheckEvent PROBE = new PermissionCheckEvent();
+
+  private CheckTraces() {
+  }
+
+  /**
+   * Starts the trace of a permission check or returns {@code null}, if the event is disabled.
+   *
+   * @param permission checked permission, for typed checks without id
+   * @param id id of the permission object or {@code null}
+   *
+   * @return trace or {@code null}
+   */
+  static CheckTrace start(Permission permission, String id) {
+    if (!PROBE.isEnabled()) {
+      return null;
+    }
+    PermissionCheckEvent event = new PermissionCheckEvent();
+    event.begin();
+    return new EventCheckTrace(event, permission, id);
+  }
+
+  private static final class EventCheckTrace extends CheckTrace {
+
+    private final PermissionCheckEvent event;
+    private final Permission permission;
+    private final String id;
+
+    private EventCheckTrace(PermissionCheckEvent event, Permission permission, String id) {
+      this.event = event;
+      this.permission = permission;
+      this.id = id;
+    }
+
+    @Override
+    void commit(PermissionCheckMetrics.Outcome outcome, boolean guarded, long guardNanos, long realmNanos) {
+      event.end();
+      if (event.shouldCommit()) {
+        if (permission instanceof TypedPermission) {
+          TypedPermission typedPermission = (TypedPermission) permission;
+          event.type = typedPermission.getType();
+          event.action = typedPermission.getAction();
+        } else {
+          event.type = String.valueOf(permission);
+        }
+        event.id = id;
+        event.decision = outcome.name();
+        event.guarded = guarded;
+        event.guardDuration = guardNanos;
+        event.realmDuration = realmNanos;
+        event.commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a single permission check of {@link PermissionCheck} or {@link PermissionActionCheck}.
+ * The event is disabled by default, so that checks cost nothing in recordings which do not ask for it. It can be
+ * enabled in the settings of a recording with {@code com.github.sdorra.ssp.PermissionCheck#enabled=true} and an
+ * optional {@code com.github.sdorra.ssp.PermissionCheck#threshold}.
+ *
+ * @author Sebastian Sdorra
+ */
+@Name("com.github.sdorra.ssp.PermissionCheck")
+@Label("Permission Check")
+@Category({"Apache Shiro", "Static Permissions"})
+@Description("Permission check of a generated permission class")
+@Enabled(false)
+@StackTrace(false)
+@Threshold("0 ms")
+final class PermissionCheckEvent extends Event {
+
+  @Label("Type")
+  String type;
+
+  @Label("Action")
+  String action;
+
+  @Label("Id")
+  @Description("Id of the permission object, empty for global checks")
+  String id;
+
+  @Label("Decision")
+  @Description("GRANTED, DENIED or EXCEPTION")
+  String decision;
+
+  @Label("Guarded")
+  @Description("True if a guard intercepted the check")
+  boolean guarded;
+
+  @Label("Guard Duration")
+  @Description("Time spent in the guard, without the time of the realm")
+  @Timespan(Timespan.NANOSECONDS)
+  long guardDuration;
+
+  @Label("Realm Duration")
+  @Description("Time spent in the shiro realm")
+  @Timespan(Timespan.NANOSECONDS)
+  long realmDuration;
+}
@@ -0,0 +1,318 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.sdorra.ssp;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Processor} which passes only the items, for which the subject has the permission of an action check.
+ * The subject is resolved, when the processor is created, and is bound to the threads of the executor, which
+ * evaluate the batches.
+ * <p>
+ * Items of the upstream publisher are grouped into micro-batches, every batch is evaluated with one call of
+ * {@link PermissionActionCheck#isPermitted(java.util.Collection)} on the executor, so that neither the upstream nor
+ * the subscriber thread is blocked by the realm. The processor requests a new batch from upstream only, if the
+ * demand of the subscriber is not covered by already permitted items, so at most two batches are buffered.
+ * The processor supports a single subscriber.
+ * <p>
+ * If the executor rejects a batch or the evaluation fails, the upstream subscription is cancelled and the failure is
+ * passed to {@link Flow.Subscriber#onError(Throwable)}. If the subscriber throws an exception, the subscriber is
+ * treated as cancelled and the exception is passed to the uncaught exception handler of the thread.
+ *
+ * @author Sebastian Sdorra
+ * @param <T> permission object type
+ */
+public final class PermissionFilterProcessor<T extends PermissionObject> implements Flow.Processor<T, T> {
+
+  /** default number of items per batch */
+  public static final int DEFAULT_BATCH_SIZE = 64;
+
+  private final PermissionActionCheck<T> check;
+  private final Executor executor;
+  private final int batchSize;
+
+  private final Queue<T> pending = new ConcurrentLinkedQueue<>();
+  private final Queue<T> permitted = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger permittedCount = new AtomicInteger();
+  private final AtomicLong demand = new AtomicLong();
+  private final AtomicLong outstanding = new AtomicLong();
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private final AtomicBoolean upstreamSubscribed = new AtomicBoolean();
+
+  private volatile Flow.Subscription upstream;
+  private volatile Flow.Subscriber<? super T> downstream;
+  private volatile boolean evaluating;
+  private volatile boolean upstreamDone;
+  private volatile Throwable error;
+  private volatile Throwable failure;
+  private volatile boolean cancelled;
+  private boolean terminated;
+
+  /**
+   * Constructs a new instance with the default batch size.
+   *
+   * @param check action check for the items
+   * @param executor executor for the evaluation of the batches
+   */
+  public PermissionFilterProcessor(PermissionActionCheck<T> check, Executor executor) {
+    this(check, executor, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param check action check for the items
+   * @param executor executor for the evaluation of the batches
+   * @param batchSize maximum number of items per batch
+   */
+  public PermissionFilterProcessor(PermissionActionCheck<T> check, Executor executor, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batch size must be greater than zero");
+    }
+    this.check = check.bound();
+    this.executor = Objects.requireNonNull(executor, "executor is required");
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber is required");
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("processor supports only a single subscriber"));
+      return;
+    }
+    subscriber.onSubscribe(new Downstream());
+    downstream = subscriber;
+    drain();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (!upstreamSubscribed.compareAndSet(false, true)) {
+      subscription.cancel();
+      return;
+    }
+    upstream = subscription;
+    drain();
+  }
+
+  @Override
+  public void onNext(T item) {
+    outstanding.decrementAndGet();
+    pending.offer(item);
+    drain();
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    error = throwable;
+    upstreamDone = true;
+    drain();
+  }
+
+  @Override
+  public void onComplete() {
+    upstreamDone = true;
+    drain();
+  }
+
+  /**
+   * Serializes all signals to the subscriber and to the upstream subscription. The method never blocks, the
+   * evaluation of a batch is passed to the executor.
+   */
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      Flow.Subscriber<? super T> subscriber = downstream;
+      if (subscriber != null && !terminated) {
+        try {
+          emit(subscriber);
+        } catch (RuntimeException ex) {
+          subscriberFailed(ex);
+        }
+        if (!terminated && !cancelled) {
+          evaluate();
+          request();
+        }
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void emit(Flow.Subscriber<? super T> subscriber) {
+    if (cancelled) {
+      pending.clear();
+      permitted.clear();
+      terminated = true;
+      return;
+    }
+    while (demand.get() > 0) {
+      T item = permitted.poll();
+      if (item == null) {
+        break;
+      }
+      permittedCount.decrementAndGet();
+      demand.decrementAndGet();
+      subscriber.onNext(item);
+    }
+    Throwable failed = failure;
+    if (failed != null) {
+      // failure of the evaluation or an invalid request
+      terminate(subscriber, failed);
+    } else if (upstreamDone && !evaluating && pending.isEmpty() && permitted.isEmpty()) {
+      Throwable upstreamError = error;
+      if (upstreamError != null) {
+        terminate(subscriber, upstreamError);
+      } else {
+        terminated = true;
+        subscriber.onComplete();
+      }
+    }
+  }
+
+  private void terminate(Flow.Subscriber<? super T> subscriber, Throwable failure) {
+    terminated = true;
+    pending.clear();
+    permitted.clear();
+    Flow.Subscription subscription = upstream;
+    if (subscription != null && !upstreamDone) {
+      subscription.cancel();
+    }
+    subscriber.onError(failure);
+  }
+
+  /**
+   * The subscriber violated the specification by throwing an exception, it is treated as cancelled.
+   */
+  private void subscriberFailed(RuntimeException exception) {
+    terminated = true;
+    cancelled = true;
+    pending.clear();
+    permitted.clear();
+    Flow.Subscription subscription = upstream;
+    if (subscription != null && !upstreamDone) {
+      subscription.cancel();
+    }
+    Thread thread = Thread.currentThread();
+    thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+  }
+
+  private void evaluate() {
+    if (evaluating || pending.isEmpty()) {
+      return;
+    }
+    // evaluate full batches or the rest, if no more items were requested
+    if (pending.size() < batchSize && outstanding.get() > 0 && !upstreamDone) {
+      return;
+    }
+    List<T> batch = new ArrayList<>(batchSize);
+    T item;
+    while (batch.size() < batchSize && (item = pending.poll()) != null) {
+      batch.add(item);
+    }
+    evaluating = true;
+    try {
+      // the subject is bound to the thread of the executor like for the other asynchronous checks
+      executor.execute(check.getSubject().associateWith(() -> {
+        try {
+          BitSet bits = check.isPermitted(batch);
+          for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            permitted.offer(batch.get(i));
+            permittedCount.incrementAndGet();
+          }
+        } catch (RuntimeException ex) {
+          failure = ex;
+        } finally {
+          evaluating = false;
+          drain();
+        }
+      }));
+    } catch (RejectedExecutionException ex) {
+      evaluating = false;
+      failure = ex;
+      // we own the drain loop, so this only triggers another pass which signals the failure
+      drain();
+    }
+  }
+
+  private void request() {
+    Flow.Subscription subscription = upstream;
+    if (subscription == null || upstreamDone || failure != null || outstanding.get() > 0 || !pending.isEmpty()) {
+      return;
+    }
+    if (demand.get() > permittedCount.get()) {
+      outstanding.addAndGet(batchSize);
+      subscription.request(batchSize);
+    }
+  }
+
+  private final class Downstream implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        failure = new IllegalArgumentException("non-positive subscription request: " + n);
+      } else {
+        demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      Flow.Subscription subscription = upstream;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+      drain();
+    }
+  }
+}
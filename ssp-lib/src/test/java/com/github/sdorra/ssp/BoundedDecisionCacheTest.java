@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BoundedDecisionCache}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class BoundedDecisionCacheTest {
+
+  private final TypedPermission read = new TypedPermission("repository", "read");
+  private final TypedPermission write = new TypedPermission("repository", "write");
+
+  /**
+   * Tests that decisions are stored per principal, permission, id and guard.
+   */
+  @Test
+  public void testGetAndPut() {
+    BoundedDecisionCache cache = new BoundedDecisionCache(16, 1, TimeUnit.MINUTES);
+    assertNull(cache.get("trillian", read, "42", false, 1L));
+
+    cache.put("trillian", read, "42", false, true, 1L);
+    cache.put("trillian", read, "21", false, false, 1L);
+
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, "42", false, 1L));
+    assertEquals(Boolean.FALSE, cache.get("trillian", read, "21", false, 1L));
+    assertNull(cache.get("dent", read, "42", false, 1L));
+    assertNull(cache.get("trillian", write, "42", false, 1L));
+    assertNull(cache.get("trillian", read, "42", true, 1L));
+    assertNull(cache.get("trillian", read, null, false, 1L));
+  }
+
+  /**
+   * Tests that expired decisions are not returned.
+   */
+  @Test
+  public void testTimeToLive() throws InterruptedException {
+    BoundedDecisionCache cache = new BoundedDecisionCache(16, 1, TimeUnit.MILLISECONDS);
+    cache.put("trillian", read, "42", false, true, 1L);
+    Thread.sleep(5);
+    assertNull(cache.get("trillian", read, "42", false, 1L));
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Tests that the size is bounded and frequently read decisions survive a scan, which would evict them from a plain
+   * lru cache.
+   */
+  @Test
+  public void testEviction() {
+    BoundedDecisionCache cache = new BoundedDecisionCache(8, 1, TimeUnit.MINUTES);
+    cache.put("trillian", read, "hot", false, true, 1L);
+    cache.get("trillian", read, "hot", false, 1L);
+    cache.get("trillian", read, "hot", false, 1L);
+
+    for (int i = 0; i < 12; i++) {
+      cache.put("trillian", read, String.valueOf(i), false, true, 1L);
+    }
+
+    assertEquals(8, cache.size());
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, "hot", false, 1L));
+    assertNull(cache.get("trillian", read, "0", false, 1L));
+  }
+
+  /**
+   * Tests that decisions of another epoch are not returned.
+   */
+  @Test
+  public void testEpoch() {
+    BoundedDecisionCache cache = new BoundedDecisionCache(8, 1, TimeUnit.MINUTES);
+    cache.put("trillian", read, "42", false, true, 1L);
+    assertNull(cache.get("trillian", read, "42", false, 2L));
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Tests that replaced and stale entries do not grow the clock, if the number of cached decisions stays below the
+   * maximum size.
+   */
+  @Test
+  public void testClockIsBounded() {
+    BoundedDecisionCache cache = new BoundedDecisionCache(8, 1, TimeUnit.MINUTES);
+    for (int i = 0; i < 10000; i++) {
+      cache.put("trillian", read, "42", false, true, i);
+      assertTrue(cache.clockSize() <= 16);
+    }
+    for (int i = 0; i < 10000; i++) {
+      cache.put("trillian", read, "21", false, true, i);
+      assertNull(cache.get("trillian", read, "21", false, i + 1L));
+      assertTrue(cache.clockSize() <= 16);
+    }
+    assertEquals(1, cache.size());
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, "42", false, 9999L));
+  }
+
+  /**
+   * Tests {@link BoundedDecisionCache#clear()}.
+   */
+  @Test
+  public void testClear() {
+    BoundedDecisionCache cache = new BoundedDecisionCache(8, 1, TimeUnit.MINUTES);
+    cache.put("trillian", read, "42", false, true, 1L);
+    cache.clear();
+    assertNull(cache.get("trillian", read, "42", false, 1L));
+    assertEquals(0, cache.clockSize());
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.subject.PrincipalCollection;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Realm for tests, which counts every permission check. The realm overrides {@code isPermitted}, so its grants are
+ * not used to decide without the realm.
+ *
+ * @author Sebastian Sdorra
+ */
+class CountingRealm extends GrantingRealm {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  CountingRealm(String... permissions) {
+    super(permissions);
+  }
+
+  int getCalls() {
+    return calls.get();
+  }
+
+  @Override
+  public boolean isPermitted(PrincipalCollection principals, Permission permission) {
+    calls.incrementAndGet();
+    return super.isPermitted(principals, permission);
+  }
+
+  @Override
+  public boolean[] isPermitted(PrincipalCollection subjectPrincipals, List<Permission> permissions) {
+    calls.addAndGet(permissions.size());
+    return super.isPermitted(subjectPrincipals, permissions);
+  }
+}
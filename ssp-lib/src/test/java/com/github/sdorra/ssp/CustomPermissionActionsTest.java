@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CustomPermissionActions}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class CustomPermissionActionsTest {
+
+  private final AtomicInteger intercepts = new AtomicInteger();
+
+  private final PermissionGuard<PermissionObject> guard = permission -> {
+    intercepts.incrementAndGet();
+    return new PermissionActionCheckInterceptor<PermissionObject>() {};
+  };
+
+  /**
+   * Tests that the guard is asked only once per custom action.
+   */
+  @Test
+  public void testGetInternsAction() {
+    CustomPermissionActions<PermissionObject> actions = new CustomPermissionActions<>("repository", guard);
+
+    PermissionAction<PermissionObject> merge = actions.get("merge");
+    assertSame(merge, actions.get("merge"));
+    assertEquals("repository:merge", merge.getPermission().toString());
+    assertEquals(1, intercepts.get());
+  }
+
+  /**
+   * Tests that the number of interned actions is bounded.
+   */
+  @Test
+  public void testGetIsBounded() {
+    CustomPermissionActions<PermissionObject> actions = new CustomPermissionActions<>("repository", guard, 2);
+
+    actions.get("a");
+    actions.get("b");
+    PermissionAction<PermissionObject> c = actions.get("c");
+
+    assertEquals(2, actions.size());
+    assertNotSame(c, actions.get("c"));
+    assertEquals("repository:c", actions.get("c").getPermission().toString());
+  }
+}
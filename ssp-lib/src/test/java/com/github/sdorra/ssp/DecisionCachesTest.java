@@ -0,0 +1,230 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DecisionCaches}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class DecisionCachesTest {
+
+  private final CountingRealm realm = new CountingRealm("document:read:42");
+
+  @Before
+  public void setUp() {
+    bind(realm);
+    DecisionCaches.register(new BoundedDecisionCache(64, 1, TimeUnit.MINUTES));
+  }
+
+  private void bind(Realm subjectRealm) {
+    DefaultSecurityManager securityManager = new DefaultSecurityManager(subjectRealm);
+    Subject subject = new Subject.Builder(securityManager)
+      .principals(new SimplePrincipalCollection("trillian", "test"))
+      .authenticated(true)
+      .buildSubject();
+    ThreadContext.bind(subject);
+  }
+
+  @After
+  public void tearDown() {
+    DecisionCaches.unregister();
+    ThreadContext.unbindSubject();
+  }
+
+  /**
+   * Tests that the realm is asked only once for the same decision.
+   */
+  @Test
+  public void testIsPermitted() {
+    PermissionAction<Document> action = new PermissionAction<>("document", "read");
+    assertTrue(action.check("42").isPermitted());
+    assertTrue(action.check("42").isPermitted());
+    assertTrue(action.actionCheck().isPermitted("42"));
+    assertFalse(action.check("21").isPermitted());
+    assertFalse(action.check("21").isPermitted());
+    assertEquals(2, realm.getCalls());
+  }
+
+  /**
+   * Tests that a cached denial throws an {@link UnauthorizedException}.
+   */
+  @Test
+  public void testCheck() {
+    PermissionAction<Document> action = new PermissionAction<>("document", "read");
+    action.check("42").check();
+    action.check("42").check();
+    assertEquals(1, realm.getCalls());
+    for (int i = 0; i < 2; i++) {
+      try {
+        action.check("21").check();
+        fail("permission should be denied");
+      } catch (UnauthorizedException ex) {
+        assertEquals("Subject does not have permission [document:read:21]", ex.getMessage());
+      }
+    }
+    assertEquals(2, realm.getCalls());
+  }
+
+  /**
+   * Tests that only the ids without cached decision are passed to the realm.
+   */
+  @Test
+  public void testIsPermittedList() {
+    PermissionActionCheck<Document> check = new PermissionAction<Document>("document", "read").actionCheck();
+    assertTrue(check.isPermitted("42"));
+
+    BitSet permitted = check.isPermitted(Arrays.asList("21", "42", "43"));
+    assertEquals(BitSet.valueOf(new long[]{2L}), permitted);
+    assertEquals(3, realm.getCalls());
+
+    permitted = check.isPermitted(Arrays.asList("21", "42", "43"));
+    assertEquals(BitSet.valueOf(new long[]{2L}), permitted);
+    assertEquals(3, realm.getCalls());
+  }
+
+  /**
+   * Tests that the decisions of a guard are not cached, unless the guard opts in.
+   */
+  @Test
+  public void testGuard() {
+    CountingInterceptor interceptor = new CountingInterceptor(false);
+    PermissionAction<Document> action = new PermissionAction<>(new TypedPermission("document", "read"), interceptor);
+    assertTrue(action.check("42").isPermitted());
+    assertTrue(action.check("42").isPermitted());
+    assertEquals(2, interceptor.calls.get());
+    assertEquals(1, realm.getCalls());
+
+    CountingInterceptor cacheable = new CountingInterceptor(true);
+    action = new PermissionAction<>(new TypedPermission("document", "write"), cacheable);
+    assertFalse(action.check("42").isPermitted());
+    assertFalse(action.actionCheck().isPermitted("42"));
+    assertEquals(1, cacheable.calls.get());
+  }
+
+  /**
+   * Tests that an invalidation of the subject or the type makes cached decisions stale.
+   */
+  @Test
+  public void testInvalidation() {
+    InvalidationBus bus = new InMemoryInvalidationBus();
+    PermissionAction<Document> action = new PermissionAction<>("document", "read");
+    assertTrue(action.check("42").isPermitted());
+    assertTrue(action.check("42").isPermitted());
+    assertEquals(1, realm.getCalls());
+
+    bus.publish(Invalidation.subject("trillian"));
+    assertTrue(action.check("42").isPermitted());
+    assertEquals(2, realm.getCalls());
+
+    bus.publish(Invalidation.type("document"));
+    assertTrue(action.check("42").isPermitted());
+    assertTrue(action.check("42").isPermitted());
+    assertEquals(3, realm.getCalls());
+  }
+
+  /**
+   * Tests that the decision for any object is cached per subject until the subject is invalidated.
+   */
+  @Test
+  public void testIsPermittedForAny() {
+    GrantingRealm grantingRealm = new GrantingRealm("document:read:42");
+    bind(grantingRealm);
+    PermissionActionCheck<Document> read = new PermissionAction<Document>("document", "read").actionCheck();
+    assertTrue(read.isPermittedForAny());
+    assertTrue(read.isPermittedForAny());
+    assertEquals(1, grantingRealm.getInfoCalls());
+
+    PermissionEpochs.invalidateSubject("trillian");
+    assertTrue(read.isPermittedForAny());
+    assertEquals(2, grantingRealm.getInfoCalls());
+
+    assertFalse(new PermissionAction<Document>("document", "write").actionCheck().isPermittedForAny());
+  }
+
+  /**
+   * Tests that nothing is cached without registered cache.
+   */
+  @Test
+  public void testWithoutCache() {
+    DecisionCaches.unregister();
+    PermissionAction<Document> action = new PermissionAction<>("document", "read");
+    assertTrue(action.check("42").isPermitted());
+    assertTrue(action.check("42").isPermitted());
+    assertEquals(2, realm.getCalls());
+  }
+
+  public static class Document implements PermissionObject {
+
+    private final String id;
+
+    public Document(String id) {
+      this.id = id;
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+  }
+
+  private static class CountingInterceptor implements PermissionActionCheckInterceptor<Document> {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final boolean cacheable;
+
+    private CountingInterceptor(boolean cacheable) {
+      this.cacheable = cacheable;
+    }
+
+    @Override
+    public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+      calls.incrementAndGet();
+      return delegate.getAsBoolean();
+    }
+
+    @Override
+    public boolean isCacheable() {
+      return cacheable;
+    }
+  }
+}
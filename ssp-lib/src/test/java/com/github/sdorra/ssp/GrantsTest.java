@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Grants}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class GrantsTest {
+
+  private static final TypedPermission READ = new TypedPermission("repository", "read");
+
+  /**
+   * Tests that the granted strings are resolved with their original case.
+   */
+  @Test
+  public void testOf() {
+    List<Permission> grants = Grants.of(subject(new GrantingRealm("repository:read:AbC")));
+    assertNotNull(grants);
+    assertEquals(1, grants.size());
+    assertTrue(grants.get(0) instanceof WildcardGrant);
+    assertTrue(grants.get(0).implies(READ.withId("abc")));
+    assertEquals(Collections.singleton("AbC"), PermittedIds.of(READ, grants, false).getIds());
+  }
+
+  /**
+   * Tests that the grants are unknown, if the realm uses another permission resolver.
+   */
+  @Test
+  public void testCaseSensitiveResolver() {
+    GrantingRealm realm = new GrantingRealm("repository:read:AbC,def");
+    realm.setPermissionResolver(new WildcardPermissionResolver(true));
+    assertNull(Grants.of(subject(realm)));
+  }
+
+  /**
+   * Tests that the grants are unknown, if a realm overrides the decision of its grants.
+   */
+  @Test
+  public void testOverriddenIsPermitted() {
+    assertNull(Grants.of(subject(new CountingRealm("repository:read:abc"))));
+    assertNull(Grants.of(subject(new DenyingRealm("repository:read:abc"))));
+
+    PermittedIds permitted = PermittedIds.of(READ, Grants.of(subject(new DenyingRealm("repository:read"))), false);
+    assertTrue(permitted.isPostFilterRequired());
+  }
+
+  private Subject subject(Realm realm) {
+    return new Subject.Builder(new DefaultSecurityManager(realm))
+      .principals(new SimplePrincipalCollection("trillian", "test"))
+      .authenticated(true)
+      .buildSubject();
+  }
+
+  private static class DenyingRealm extends GrantingRealm {
+
+    private DenyingRealm(String... permissions) {
+      super(permissions);
+    }
+
+    @Override
+    protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+      return !permission.toString().endsWith(":xyz") && super.isPermitted(permission, info);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link InMemoryInvalidationBus}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class InMemoryInvalidationBusTest {
+
+  /**
+   * Tests that published invalidations are applied to the epochs and passed to the listeners.
+   */
+  @Test
+  public void testPublish() {
+    InMemoryInvalidationBus bus = new InMemoryInvalidationBus();
+    List<Invalidation> received = new ArrayList<>();
+    InvalidationListener listener = received::add;
+    bus.subscribe(listener);
+
+    long subject = PermissionEpochs.current("marvin", "repository");
+    long global = PermissionEpochs.current("marvin");
+
+    bus.publish(Invalidation.subject("marvin"));
+    assertNotEquals(subject, PermissionEpochs.current("marvin", "repository"));
+    assertNotEquals(global, PermissionEpochs.current("marvin"));
+
+    subject = PermissionEpochs.current("marvin", "repository");
+    bus.publish(Invalidation.type("repository").asRemote());
+    assertNotEquals(subject, PermissionEpochs.current("marvin", "repository"));
+
+    subject = PermissionEpochs.current("marvin", "repository");
+    bus.unsubscribe(listener);
+    bus.publish(Invalidation.all());
+    assertNotEquals(subject, PermissionEpochs.current("marvin", "repository"));
+
+    assertEquals(2, received.size());
+    assertEquals(Invalidation.subject("marvin"), received.get(0));
+    assertTrue(received.get(1).isRemote());
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link IndexedAuthorizationInfo}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class IndexedAuthorizationInfoTest {
+
+  /**
+   * Tests that string and object permissions are compiled into a single index.
+   */
+  @Test
+  public void testCompile() {
+    SimpleAuthorizationInfo info = new SimpleAuthorizationInfo(Collections.singleton("user"));
+    info.addStringPermission("repository:read:*");
+    info.addObjectPermission(new WildcardPermission("repository:delete:123"));
+
+    IndexedAuthorizationInfo indexed = new IndexedAuthorizationInfo(info, new WildcardPermissionResolver());
+    assertEquals(Collections.singleton("user"), indexed.getRoles());
+    assertTrue(indexed.getStringPermissions().isEmpty());
+
+    Collection<Permission> permissions = indexed.getObjectPermissions();
+    assertEquals(1, permissions.size());
+    assertSame(indexed.getIndex(), permissions.iterator().next());
+    assertEquals(2, indexed.getIndex().getPermissions().size());
+  }
+
+  /**
+   * Tests the index with an {@link org.apache.shiro.realm.AuthorizingRealm}.
+   */
+  @Test
+  public void testWithRealm() {
+    SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+    info.addStringPermission("repository:read:*");
+    info.addStringPermission("repository:delete:123");
+
+    SimpleAccountRealm realm = new SimpleAccountRealm() {
+      @Override
+      protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+        return new IndexedAuthorizationInfo(info, getPermissionResolver());
+      }
+    };
+    SimplePrincipalCollection principals = new SimplePrincipalCollection("trillian", realm.getName());
+
+    assertTrue(realm.isPermitted(principals, new TypedPermission("repository", "read", "abc")));
+    assertTrue(realm.isPermitted(principals, "repository:delete:123"));
+    assertFalse(realm.isPermitted(principals, new TypedPermission("repository", "delete", "abc")));
+  }
+
+  /**
+   * Tests that the index gets stale with an invalidation of the subject.
+   */
+  @Test
+  public void testIsStale() {
+    SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+    info.addStringPermission("repository:read:*");
+
+    IndexedAuthorizationInfo indexed = new IndexedAuthorizationInfo(info, new WildcardPermissionResolver(), "trillian");
+    assertFalse(indexed.isStale());
+
+    PermissionEpochs.invalidateSubject("trillian");
+    assertTrue(indexed.isStale());
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class LatencyHistogramTest {
+
+  /**
+   * Tests the mapping of durations to buckets.
+   */
+  @Test
+  public void testBucket() {
+    assertEquals(0, LatencyHistogram.bucket(0));
+    assertEquals(0, LatencyHistogram.bucket(64));
+    assertEquals(1, LatencyHistogram.bucket(65));
+    assertEquals(1, LatencyHistogram.bucket(128));
+    assertEquals(2, LatencyHistogram.bucket(129));
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+    for (int i = 0; i < LatencyHistogram.BUCKETS - 1; i++) {
+      assertEquals(i, LatencyHistogram.bucket(LatencyHistogram.getBucketBound(i)));
+    }
+  }
+
+  /**
+   * Tests {@link LatencyHistogram#record(long, long)}.
+   */
+  @Test
+  public void testRecord() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100);
+    histogram.record(1000, 3);
+    assertEquals(4, histogram.getCount());
+    assertEquals(3100, histogram.getSum());
+    assertEquals(1, histogram.getBucketCount(1));
+    assertEquals(3, histogram.getBucketCount(LatencyHistogram.bucket(1000)));
+  }
+}
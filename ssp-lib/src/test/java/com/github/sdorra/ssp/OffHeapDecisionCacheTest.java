@@ -0,0 +1,225 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link OffHeapDecisionCache}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class OffHeapDecisionCacheTest {
+
+  private final TypedPermission read = new TypedPermission("repository", "read");
+  private final TypedPermission write = new TypedPermission("repository", "write");
+
+  /**
+   * Tests that decisions are stored per principal, permission, id and guard.
+   */
+  @Test
+  public void testGetAndPut() {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(1024, 1, TimeUnit.MINUTES);
+    assertNull(cache.get("trillian", read, "42", false, 1L));
+
+    cache.put("trillian", read, "42", false, true, 1L);
+    cache.put("trillian", read, "21", false, false, 1L);
+
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, "42", false, 1L));
+    assertEquals(Boolean.FALSE, cache.get("trillian", read, "21", false, 1L));
+    assertNull(cache.get("dent", read, "42", false, 1L));
+    assertNull(cache.get("trillian", write, "42", false, 1L));
+    assertNull(cache.get("trillian", read, "42", true, 1L));
+    assertNull(cache.get("trillian", read, null, false, 1L));
+    assertEquals(2, cache.size());
+
+    cache.put("trillian", read, "42", false, false, 1L);
+    assertEquals(Boolean.FALSE, cache.get("trillian", read, "42", false, 1L));
+    assertEquals(2, cache.size());
+  }
+
+  /**
+   * Tests that decisions of another epoch are not returned.
+   */
+  @Test
+  public void testEpoch() {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(1024, 1, TimeUnit.MINUTES);
+    cache.put("trillian", read, "42", false, true, 1L);
+    assertNull(cache.get("trillian", read, "42", false, 2L));
+  }
+
+  /**
+   * Tests that expired decisions are not returned.
+   */
+  @Test
+  public void testTimeToLive() throws InterruptedException {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(1024, 1, TimeUnit.MILLISECONDS);
+    cache.put("trillian", read, "42", false, true, 1L);
+    Thread.sleep(5);
+    assertNull(cache.get("trillian", read, "42", false, 1L));
+  }
+
+  /**
+   * Tests that the size is bounded and that the remaining decisions are still found after evictions.
+   */
+  @Test
+  public void testEviction() {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(640, 1, TimeUnit.MINUTES);
+    for (int i = 0; i < 10000; i++) {
+      cache.put("trillian", read, String.valueOf(i), false, i % 2 == 0, 1L);
+    }
+    assertEquals(640, cache.size());
+
+    int found = 0;
+    for (int i = 0; i < 10000; i++) {
+      Boolean decision = cache.get("trillian", read, String.valueOf(i), false, 1L);
+      if (decision != null) {
+        assertEquals(i % 2 == 0, decision);
+        found++;
+      }
+    }
+    assertEquals(640, found);
+  }
+
+  /**
+   * Tests that a referenced decision survives a pass of the clock.
+   */
+  @Test
+  public void testClock() {
+    // two decisions per segment
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(128, 1, TimeUnit.MINUTES);
+    String[] ids = idsOfSameSegment(cache, 3);
+
+    cache.put("trillian", read, ids[0], false, true, 1L);
+    cache.get("trillian", read, ids[0], false, 1L);
+    cache.put("trillian", read, ids[1], false, true, 1L);
+    cache.put("trillian", read, ids[2], false, true, 1L);
+
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, ids[0], false, 1L));
+    assertNull(cache.get("trillian", read, ids[1], false, 1L));
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, ids[2], false, 1L));
+  }
+
+  private String[] idsOfSameSegment(OffHeapDecisionCache cache, int count) {
+    String[] ids = new String[count];
+    long segment = cache.hash("trillian", read, "0", false).key >>> 58;
+    int found = 0;
+    for (int i = 0; found < count; i++) {
+      String id = String.valueOf(i);
+      if (cache.hash("trillian", read, id, false).key >>> 58 == segment) {
+        ids[found++] = id;
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Tests {@link OffHeapDecisionCache#clear()}.
+   */
+  @Test
+  public void testClear() {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(1024, 1, TimeUnit.MINUTES);
+    cache.put("trillian", read, "42", false, true, 1L);
+    cache.clear();
+    assertNull(cache.get("trillian", read, "42", false, 1L));
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Tests that the hash separates the parts of the key and is seeded per instance.
+   */
+  @Test
+  public void testHash() {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(1024, 1, TimeUnit.MINUTES);
+    assertNotEquals(
+      cache.hash("ab", read, "c", false).key,
+      cache.hash("a", read, "bc", false).key
+    );
+    assertNotEquals(
+      cache.hash("trillian", read, null, false).key,
+      cache.hash("trillian", read, "", false).key
+    );
+    assertEquals(
+      cache.hash("trillian", read, "42", false).key,
+      cache.hash("trillian", read, "42", false).key
+    );
+
+    OffHeapDecisionCache other = new OffHeapDecisionCache(1024, 1, TimeUnit.MINUTES);
+    assertNotEquals(
+      cache.hash("trillian", read, "42", false).key,
+      other.hash("trillian", read, "42", false).key
+    );
+  }
+
+  /**
+   * Tests that principals with the same string representation do not share decisions.
+   */
+  @Test
+  public void testPrincipalIdentity() {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(1024, 1, TimeUnit.MINUTES);
+    cache.put("42", read, "21", false, true, 1L);
+    assertEquals(Boolean.TRUE, cache.get("42", read, "21", false, 1L));
+    assertNull(cache.get(42L, read, "21", false, 1L));
+    assertNull(cache.get(new Principal("42", 1), read, "21", false, 1L));
+  }
+
+  /**
+   * Tests that long times to live do not overflow the expiry.
+   */
+  @Test
+  public void testLongTimeToLive() {
+    OffHeapDecisionCache cache = new OffHeapDecisionCache(1024, 365, TimeUnit.DAYS);
+    cache.put("trillian", read, "42", false, true, 1L);
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, "42", false, 1L));
+
+    cache = new OffHeapDecisionCache(1024, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    cache.put("trillian", read, "42", false, true, 1L);
+    assertEquals(Boolean.TRUE, cache.get("trillian", read, "42", false, 1L));
+  }
+
+  private static class Principal {
+
+    private final String name;
+    private final int hash;
+
+    private Principal(String name, int hash) {
+      this.name = name;
+      this.hash = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -25,11 +25,31 @@ package com.github.sdorra.ssp;
 
 import com.github.sdorra.shiro.ShiroRule;
 import com.github.sdorra.shiro.SubjectAware;
+import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.Rule;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
 /**
  * Unit tests for {@link PermissionActionCheck}.
  *
@@ -68,6 +88,41 @@ public class PermissionActionCheckTest {
     delete.check(new Repository("123"));
   }
 
+  /**
+   * Tests that the action check of {@link PermissionAction} is shared and resolves the subject on every call.
+   */
+  @Test
+  public void testUnbound() {
+    PermissionAction<Repository> action = new PermissionAction<>("repository", "create");
+    PermissionActionCheck<Repository> create = action.actionCheck();
+    assertSame(create, action.actionCheck());
+    assertTrue(create.isPermitted("abc"));
+
+    Subject anonymous = new Subject.Builder(SecurityUtils.getSecurityManager()).buildSubject();
+    assertFalse(anonymous.execute(() -> create.isPermitted("abc")));
+    assertFalse(anonymous.execute(() -> create.isPermitted(Collections.singletonList("abc"))).get(0));
+    assertTrue(create.isPermitted("abc"));
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#isPermitted(Subject, String)}, {@link PermissionActionCheck#check(Subject, String)}
+   * and {@link PermissionActionCheck#forSubject(Subject)}.
+   */
+  @Test
+  public void testExplicitSubject() {
+    PermissionActionCheck<Repository> create = new PermissionAction<Repository>("repository", "create").actionCheck();
+    Subject trillian = SecurityUtils.getSubject();
+    Subject anonymous = new Subject.Builder(SecurityUtils.getSecurityManager()).buildSubject();
+
+    assertTrue(create.isPermitted(trillian, "abc"));
+    assertTrue(create.isPermitted(trillian, new Repository("abc")));
+    create.check(trillian, "abc");
+    assertFalse(create.isPermitted(anonymous, "abc"));
+    assertFalse(create.forSubject(anonymous).isPermitted("abc"));
+    assertFalse(create.forSubject(anonymous).isPermitted(Arrays.asList("abc", "123")).get(0));
+    assertTrue(create.forSubject(trillian).isPermitted(new Repository("abc")));
+  }
+
   /**
    * Tests {@link PermissionActionCheck#check(String)} with invalid id.
    */
@@ -86,6 +141,204 @@ public class PermissionActionCheckTest {
     delete.check(new Repository("abc"));
   }
 
+  /**
+   * Tests {@link PermissionActionCheck#isPermitted(java.util.List)}.
+   */
+  @Test
+  public void testIsPermittedIds() {
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete");
+    BitSet permitted = delete.isPermitted(Arrays.asList("abc", "123", "xyz", "123"));
+    assertEquals(bits(1, 3), permitted);
+    assertTrue(delete.isPermitted(Collections.<String>emptyList()).isEmpty());
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#isPermitted(java.util.Collection)}.
+   */
+  @Test
+  public void testIsPermittedItems() {
+    PermissionActionCheck<Repository> create = new PermissionActionCheck<>("repository:create");
+    BitSet permitted = create.isPermitted(Arrays.asList(new Repository("abc"), new Repository("123")));
+    assertEquals(bits(0), permitted);
+  }
+
+  /**
+   * Tests that the bulk checks honour the interceptor of the action.
+   */
+  @Test
+  public void testIsPermittedWithInterceptor() {
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete", new DenyXyz());
+    assertEquals(bits(0), delete.isPermitted(Arrays.asList("123", "xyz")));
+    assertEquals(bits(0), delete.isPermitted(Arrays.asList(new Repository("123"), new Repository("xyz"))));
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#isPermittedAsync(String, java.util.concurrent.Executor)} and
+   * {@link PermissionActionCheck#checkAsync(String, java.util.concurrent.Executor)} on threads without subject.
+   */
+  @Test
+  public void testAsync() {
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete", new DenyXyz());
+    ForkJoinPool pool = new ForkJoinPool(2, WithoutSubjectThread::new, null, false);
+    try {
+      CompletableFuture<Boolean> granted = delete.isPermittedAsync("123", pool);
+      CompletableFuture<Boolean> denied = delete.isPermittedAsync(new Repository("abc"), pool);
+      CompletableFuture<BitSet> batch = delete.isPermittedAsync(Arrays.asList("abc", "123"), pool);
+      CompletableFuture.allOf(granted, denied, batch).join();
+      assertTrue(granted.join());
+      assertFalse(denied.join());
+      assertEquals(bits(1), batch.join());
+
+      delete.checkAsync("123", pool).join();
+      try {
+        delete.checkAsync(new Repository("xyz"), pool).join();
+        fail("exception expected");
+      } catch (CompletionException ex) {
+        assertEquals("xyz is denied", ex.getCause().getMessage());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Tests that an asynchronous interceptor could decide without asking shiro.
+   */
+  @Test
+  public void testAsyncInterceptor() {
+    AtomicInteger calls = new AtomicInteger();
+    PermissionActionCheck<Repository> create = new PermissionActionCheck<>(
+      "repository:create", new PermissionActionCheckInterceptor<Repository>() {
+        @Override
+        public CompletionStage<Boolean> isPermittedAsync(Subject subject, String id, Supplier<CompletionStage<Boolean>> delegate) {
+          calls.incrementAndGet();
+          return "abc".equals(id) ? CompletableFuture.completedFuture(false) : delegate.get();
+        }
+      }
+    );
+    assertFalse(create.isPermittedAsync("abc", Runnable::run).join());
+    assertEquals(1, calls.get());
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#check(java.util.List)}.
+   */
+  @Test
+  public void testCheckIds() {
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete");
+    delete.check(Arrays.asList("123", "123"));
+    try {
+      delete.check(Arrays.asList("abc", "123", "xyz"));
+      fail("exception expected");
+    } catch (BulkAuthorizationException ex) {
+      assertEquals(bits(0, 2), ex.getDenied());
+      assertEquals(3, ex.getSize());
+    }
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#check(java.util.Collection)} with interceptor.
+   */
+  @Test
+  public void testCheckItemsWithInterceptor() {
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete", new DenyXyz());
+    try {
+      delete.check(Arrays.asList(new Repository("123"), new Repository("xyz"), new Repository("abc")));
+      fail("exception expected");
+    } catch (BulkAuthorizationException ex) {
+      assertEquals(bits(1, 2), ex.getDenied());
+    }
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#isPermitted(List, java.util.concurrent.Executor)} with a batch which is split
+   * into parallel slices.
+   */
+  @Test
+  public void testIsPermittedParallel() {
+    int size = PermissionActionCheck.PARALLEL_THRESHOLD * 4 + 7;
+    String[] ids = new String[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = i % 3 == 0 ? "123" : "abc";
+    }
+    List<String> idList = Arrays.asList(ids);
+    AtomicInteger wrongSubject = new AtomicInteger();
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>(
+      "repository:delete", new PermissionActionCheckInterceptor<Repository>() {
+        @Override
+        public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+          if (!"trillian".equals(SecurityUtils.getSubject().getPrincipal())) {
+            wrongSubject.incrementAndGet();
+          }
+          return delegate.getAsBoolean();
+        }
+      }
+    );
+    // shiro binds the subject to an inheritable thread local, so the workers have to forget it
+    ForkJoinPool pool = new ForkJoinPool(4, WithoutSubjectThread::new, null, false);
+    try {
+      assertEquals(delete.isPermitted(idList), delete.isPermitted(idList, pool));
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(0, wrongSubject.get());
+  }
+
+  /**
+   * Tests that {@link PermissionActionCheck#filter(Stream)} pulls the objects lazily.
+   */
+  @Test
+  public void testFilterStream() {
+    AtomicInteger counter = new AtomicInteger();
+    Stream<Repository> repositories = Stream.generate(
+      () -> new Repository(counter.incrementAndGet() % 2 == 0 ? "123" : "abc")
+    );
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete");
+    List<Repository> permitted = delete.filter(repositories).limit(3).collect(Collectors.toList());
+    assertEquals(3, permitted.size());
+    for (Repository repository : permitted) {
+      assertEquals("123", repository.getId());
+    }
+    assertEquals(PermittedIterator.MIN_CHUNK_SIZE, counter.get());
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#filter(Iterable)} with interceptor.
+   */
+  @Test
+  public void testFilterIterable() {
+    List<Repository> repositories = Arrays.asList(
+      new Repository("123"), new Repository("abc"), new Repository("xyz"), new Repository("123")
+    );
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete", new DenyXyz());
+    int count = 0;
+    for (Repository repository : delete.filter(repositories)) {
+      assertEquals("123", repository.getId());
+      count++;
+    }
+    assertEquals(2, count);
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#filterIds(Iterator)} with more ids than one chunk.
+   */
+  @Test
+  public void testFilterIds() {
+    String[] ids = new String[100];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i % 10 == 0 ? "123" : "abc";
+    }
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete");
+    Iterator<String> permitted = delete.filterIds(Arrays.asList(ids).iterator());
+    int count = 0;
+    while (permitted.hasNext()) {
+      assertTrue(permitted.hasNext());
+      assertEquals("123", permitted.next());
+      count++;
+    }
+    assertEquals(10, count);
+  }
+
   /**
    * Tests {@link PermissionActionCheck#asShiroString(String)}.
    */
@@ -104,6 +357,254 @@ public class PermissionActionCheckTest {
     assertEquals("repository:delete:abc", delete.asShiroString(new Repository("abc")));
   }
 
+  /**
+   * Tests {@link PermissionActionCheck#decide(String)} and {@link PermissionActionCheck#decide(PermissionObject)}.
+   */
+  @Test
+  public void testDecide() {
+    PermissionActionCheck<Repository> create = new PermissionActionCheck<>("repository:create");
+    assertTrue(create.decide("abc").isGranted());
+    assertTrue(create.decide(new Repository("abc")).isGranted());
+
+    PermissionDecision denied = create.decide("123");
+    assertTrue(denied.isDenied());
+    assertEquals("repository", denied.getType());
+    assertEquals("create", denied.getAction());
+    assertEquals("123", denied.getId());
+    assertEquals("denied repository:create:123", denied.toString());
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#permittedIds()} with the grants of the ini realm.
+   */
+  @Test
+  public void testPermittedIds() {
+    PermittedIds create = new PermissionActionCheck<Repository>("repository:create").permittedIds();
+    assertFalse(create.isAll());
+    assertEquals(Collections.singleton("abc"), create.getIds());
+    assertFalse(create.isPostFilterRequired());
+
+    assertTrue(new PermissionActionCheck<Repository>("something:read").permittedIds().isAll());
+    assertTrue(new PermissionActionCheck<Repository>("other:read").permittedIds().isEmpty());
+
+    PermittedIds guarded = new PermissionActionCheck<>("repository:delete", new DenyXyz()).permittedIds();
+    assertEquals(Collections.singleton("123"), guarded.getIds());
+    assertTrue(guarded.isPostFilterRequired());
+  }
+
+  /**
+   * Tests that bulk checks call the bulk methods of the interceptor once per batch.
+   */
+  @Test
+  public void testBulkInterceptor() {
+    BulkDenyXyz interceptor = new BulkDenyXyz();
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete", interceptor);
+
+    assertEquals(bits(0), delete.isPermitted(Arrays.asList("123", "xyz", "abc")));
+    assertEquals(1, interceptor.idCalls.get());
+
+    assertEquals(bits(0), delete.isPermitted(Arrays.asList(new Repository("123"), new Repository("xyz"))));
+    assertEquals(1, interceptor.itemCalls.get());
+
+    List<String> permitted = delete.filter(Stream.of(new Repository("xyz"), new Repository("123")))
+      .map(Repository::getId)
+      .collect(Collectors.toList());
+    assertEquals(Collections.singletonList("123"), permitted);
+    assertEquals(2, interceptor.itemCalls.get());
+
+    try {
+      delete.check(Arrays.asList("123", "xyz", "abc"));
+      fail("exception expected");
+    } catch (BulkAuthorizationException ex) {
+      assertEquals(bits(1, 2), ex.getDenied());
+    }
+    assertEquals(2, interceptor.idCalls.get());
+
+    try {
+      delete.check(Arrays.asList(new Repository("xyz"), new Repository("123")));
+      fail("exception expected");
+    } catch (BulkAuthorizationException ex) {
+      assertEquals(bits(0), ex.getDenied());
+    }
+    assertEquals(3, interceptor.itemCalls.get());
+  }
+
+  /**
+   * Tests {@link PermissionActionCheck#isPermittedForAny()}.
+   */
+  @Test
+  public void testIsPermittedForAny() {
+    assertTrue(new PermissionActionCheck<Repository>("repository:create").isPermittedForAny());
+    assertTrue(new PermissionActionCheck<Repository>("something:read").isPermittedForAny());
+    assertFalse(new PermissionActionCheck<Repository>("repository:read").isPermittedForAny());
+    assertFalse(new PermissionActionCheck<Repository>("other:create").isPermittedForAny());
+    assertFalse(new PermissionActionCheck<Repository>("repository:read").isPermitted("abc"));
+  }
+
+  /**
+   * Tests that {@link PermissionActionCheck#check(String)} throws a {@link PermissionDeniedException} without stack
+   * trace, if it is enabled.
+   */
+  @Test
+  public void testCheckWithPermissionDeniedException() {
+    PermissionDeniedException.enable();
+    try {
+      new PermissionActionCheck<Repository>("repository:create").check("123");
+      fail("exception expected");
+    } catch (PermissionDeniedException ex) {
+      assertEquals(0, ex.getStackTrace().length);
+      assertEquals("123", ex.getDecision().getId());
+    } finally {
+      PermissionDeniedException.disable();
+    }
+  }
+
+  /**
+   * Tests that checks for an object ask the guard for the object and the guard for its id.
+   */
+  @Test
+  public void testItemGuardWithIdGuard() {
+    ItemAndIdGuard guard = new ItemAndIdGuard();
+    PermissionActionCheck<Repository> create = new PermissionAction<Repository>(
+      new TypedPermission("repository", "create"), guard
+    ).actionCheck();
+
+    assertFalse(create.isPermitted(new Repository("abc")));
+    assertEquals(1, guard.itemCalls.get());
+    assertEquals(1, guard.idCalls.get());
+
+    try {
+      create.check(new Repository("abc"));
+      fail("exception expected");
+    } catch (AuthorizationException ex) {
+      assertEquals("abc is denied", ex.getMessage());
+    }
+    assertEquals(2, guard.itemCalls.get());
+    assertEquals(2, guard.idCalls.get());
+  }
+
+  /**
+   * Tests that the default guard for an object asks the guard for the id only once.
+   */
+  @Test
+  public void testDefaultItemGuard() {
+    AtomicInteger calls = new AtomicInteger();
+    PermissionActionCheck<Repository> create = new PermissionAction<Repository>(
+      new TypedPermission("repository", "create"), new PermissionActionCheckInterceptor<Repository>() {
+        @Override
+        public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+          calls.incrementAndGet();
+          return delegate.getAsBoolean();
+        }
+      }
+    ).actionCheck();
+
+    assertTrue(create.isPermitted(new Repository("abc")));
+    assertEquals(1, calls.get());
+  }
+
+  private static BitSet bits(int... indexes) {
+    BitSet bits = new BitSet();
+    for (int index : indexes) {
+      bits.set(index);
+    }
+    return bits;
+  }
+
+  private static class WithoutSubjectThread extends ForkJoinWorkerThread {
+
+    private WithoutSubjectThread(ForkJoinPool pool) {
+      super(pool);
+    }
+
+    @Override
+    protected void onStart() {
+      super.onStart();
+      ThreadContext.remove();
+    }
+  }
+
+  private static class DenyXyz implements PermissionActionCheckInterceptor<Repository> {
+
+    @Override
+    public void check(Subject subject, String id, Runnable delegate) {
+      if ("xyz".equals(id)) {
+        throw new AuthorizationException("xyz is denied");
+      }
+      delegate.run();
+    }
+
+    @Override
+    public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+      return !"xyz".equals(id) && delegate.getAsBoolean();
+    }
+  }
+
+  private static class ItemAndIdGuard implements PermissionActionCheckInterceptor<Repository> {
+
+    private final AtomicInteger itemCalls = new AtomicInteger();
+    private final AtomicInteger idCalls = new AtomicInteger();
+
+    @Override
+    public void check(Subject subject, Repository item, Runnable delegate) {
+      itemCalls.incrementAndGet();
+      delegate.run();
+    }
+
+    @Override
+    public void check(Subject subject, String id, Runnable delegate) {
+      idCalls.incrementAndGet();
+      throw new AuthorizationException(id + " is denied");
+    }
+
+    @Override
+    public boolean isPermitted(Subject subject, Repository item, BooleanSupplier delegate) {
+      itemCalls.incrementAndGet();
+      return delegate.getAsBoolean();
+    }
+
+    @Override
+    public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+      idCalls.incrementAndGet();
+      return false;
+    }
+  }
+
+  private static class BulkDenyXyz implements PermissionActionCheckInterceptor<Repository> {
+
+    private final AtomicInteger idCalls = new AtomicInteger();
+    private final AtomicInteger itemCalls = new AtomicInteger();
+
+    @Override
+    public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+      throw new IllegalStateException("single check is not expected");
+    }
+
+    @Override
+    public BitSet isPermitted(Subject subject, Collection<String> ids, BulkDelegate delegate) {
+      idCalls.incrementAndGet();
+      return deny(ids, delegate);
+    }
+
+    @Override
+    public BitSet isPermittedItems(Subject subject, Collection<Repository> items, BulkDelegate delegate) {
+      itemCalls.incrementAndGet();
+      return deny(items.stream().map(Repository::getId).collect(Collectors.toList()), delegate);
+    }
+
+    private BitSet deny(Collection<String> ids, BulkDelegate delegate) {
+      BitSet permitted = (BitSet) delegate.isPermitted().clone();
+      int index = 0;
+      for (String id : ids) {
+        if ("xyz".equals(id)) {
+          permitted.clear(index);
+        }
+        index++;
+      }
+      return permitted;
+    }
+  }
+
   private static class Repository implements PermissionObject {
 
     private final String id;
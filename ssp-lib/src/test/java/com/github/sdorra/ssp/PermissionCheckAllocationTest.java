@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DelegatingSubject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Verifies that a steady-state global {@link PermissionCheck}, checks for objects with a cached decision and a hit of
+ * the {@link BoundedDecisionCache} do not allocate. The subject of the test compares the
+ * permission with a fixed grant by identity, so every allocated byte is caused by the check itself. The allocated bytes
+ * are read from the {@link ThreadMXBean} of the hotspot jvm, the test is skipped on jvms which do not support it.
+ *
+ * @author Sebastian Sdorra
+ */
+public class PermissionCheckAllocationTest {
+
+  private static final int ITERATIONS = 100000;
+
+  // upper bound of a check object with header and five references, even without compressed references
+  private static final int CHECK_SIZE = 64;
+
+  private final PermissionAction<PermissionObject> create = new PermissionAction<>("document", "create");
+
+  private com.sun.management.ThreadMXBean mxBean;
+
+  @Before
+  public void setUp() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    mxBean = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(mxBean.isThreadAllocatedMemorySupported() && mxBean.isThreadAllocatedMemoryEnabled());
+    ThreadContext.bind(new GrantSubject(create.getPermission()));
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
+  }
+
+  /**
+   * Tests that a global check of a generated class allocates nothing.
+   */
+  @Test
+  public void testGlobalCheck() {
+    PermissionCheck check = create.check();
+    long threadId = Thread.currentThread().getId();
+
+    // warm up, read the allocated bytes once to initialize the mx bean
+    assertTrue(isPermitted(check));
+    mxBean.getThreadAllocatedBytes(threadId);
+
+    long before = mxBean.getThreadAllocatedBytes(threadId);
+    boolean permitted = isPermitted(check);
+    long allocated = mxBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertTrue(permitted);
+    assertTrue("global check allocates " + allocated + " bytes for " + ITERATIONS + " checks", allocated < ITERATIONS);
+  }
+
+  /**
+   * Tests that checks of the action check for an object id or an object allocate nothing, if the decision is read from
+   * the registered {@link DecisionCache}. The checks of {@link PermissionAction} for an object allocate only the
+   * returned {@link PermissionCheck}.
+   */
+  @Test
+  public void testObjectChecksWithDecisionCache() {
+    PermissionObject item = () -> "42";
+    PermissionActionCheck<PermissionObject> actionCheck = create.actionCheck();
+    DecisionCaches.register(new BoundedDecisionCache(10, 1, TimeUnit.HOURS));
+    try {
+      assertAllocated("action check for id", () -> actionCheck.isPermitted("42"), 0);
+      assertAllocated("action check for item", () -> actionCheck.isPermitted(item), 0);
+      assertAllocated("id check", () -> create.check("42").isPermitted(), CHECK_SIZE);
+      assertAllocated("item check", () -> create.check(item).isPermitted(), CHECK_SIZE);
+    } finally {
+      DecisionCaches.unregister();
+    }
+  }
+
+  private void assertAllocated(String name, BooleanSupplier check, int bytesPerCheck) {
+    long threadId = Thread.currentThread().getId();
+
+    // warm up, the first check stores the decision of the realm
+    boolean expected = check.getAsBoolean();
+    for (int i = 0; i < ITERATIONS; i++) {
+      check.getAsBoolean();
+    }
+    mxBean.getThreadAllocatedBytes(threadId);
+
+    long before = mxBean.getThreadAllocatedBytes(threadId);
+    boolean same = true;
+    for (int i = 0; i < ITERATIONS; i++) {
+      same &= check.getAsBoolean() == expected;
+    }
+    long allocated = mxBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertTrue(same);
+    assertTrue(
+      name + " allocates " + allocated + " bytes for " + ITERATIONS + " checks",
+      allocated < ITERATIONS * (bytesPerCheck + 1L)
+    );
+  }
+
+  /**
+   * Tests that a hit of the {@link BoundedDecisionCache} allocates nothing.
+   */
+  @Test
+  public void testBoundedDecisionCacheHit() {
+    BoundedDecisionCache cache = new BoundedDecisionCache(10, 1, TimeUnit.HOURS);
+    TypedPermission permission = create.getPermission();
+    cache.put("trillian", permission, "42", false, true, 1L);
+    long threadId = Thread.currentThread().getId();
+
+    assertTrue(isCached(cache, permission));
+    mxBean.getThreadAllocatedBytes(threadId);
+
+    long before = mxBean.getThreadAllocatedBytes(threadId);
+    boolean cached = isCached(cache, permission);
+    long allocated = mxBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertTrue(cached);
+    assertTrue("cache hit allocates " + allocated + " bytes for " + ITERATIONS + " reads", allocated < ITERATIONS);
+  }
+
+  private boolean isCached(BoundedDecisionCache cache, TypedPermission permission) {
+    boolean cached = true;
+    for (int i = 0; i < ITERATIONS; i++) {
+      cached &= cache.get("trillian", permission, "42", false, 1L) == Boolean.TRUE;
+    }
+    return cached;
+  }
+
+  private boolean isPermitted(PermissionCheck check) {
+    boolean permitted = true;
+    for (int i = 0; i < ITERATIONS; i++) {
+      permitted &= check.isPermitted();
+    }
+    return permitted;
+  }
+
+  /**
+   * Subject which permits only the fixed grant without asking a security manager.
+   */
+  private static class GrantSubject extends DelegatingSubject {
+
+    private final Permission grant;
+
+    private GrantSubject(Permission grant) {
+      super(new SimplePrincipalCollection("trillian", "test"), true, null, null, new DefaultSecurityManager());
+      this.grant = grant;
+    }
+
+    @Override
+    public Object getPrincipal() {
+      // the principal collection of shiro copies the principals to find the primary one
+      return "trillian";
+    }
+
+    @Override
+    public boolean isPermitted(Permission permission) {
+      return permission == grant;
+    }
+  }
+}
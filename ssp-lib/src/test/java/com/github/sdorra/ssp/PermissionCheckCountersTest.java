@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.shiro.ShiroRule;
+import com.github.sdorra.shiro.SubjectAware;
+import com.github.sdorra.ssp.PermissionCheckMetrics.Outcome;
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.subject.Subject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermissionCheckCounters}.
+ *
+ * @author Sebastian Sdorra
+ */
+@SubjectAware(
+  username = "trillian",
+  password = "secret",
+  configuration = "classpath:com/github/sdorra/ssp/shiro-001.ini"
+)
+public class PermissionCheckCountersTest {
+
+  @Rule
+  public ShiroRule shiro = new ShiroRule();
+
+  private PermissionCheckCounters counters;
+
+  @Before
+  public void setUp() {
+    counters = new PermissionCheckCounters();
+    PermissionMetrics.register(counters);
+  }
+
+  @After
+  public void tearDown() {
+    PermissionMetrics.unregister();
+  }
+
+  /**
+   * Tests counting of {@link PermissionCheck}.
+   */
+  @Test
+  public void testPermissionCheck() {
+    PermissionAction<PermissionObject> create = new PermissionAction<>("repository", "create");
+    assertTrue(create.check("abc").isPermitted());
+    assertFalse(create.check("123").isPermitted());
+    try {
+      create.check("123").check();
+      fail("exception expected");
+    } catch (AuthorizationException ex) {
+      // expected
+    }
+    assertFalse(new PermissionCheck("repository:create:xyz").isPermitted());
+
+    PermissionCheckCounters.Counter counter = counter("repository", "create");
+    assertEquals(1, counter.getCount(Outcome.GRANTED));
+    assertEquals(3, counter.getCount(Outcome.DENIED));
+    assertEquals(0, counter.getCount(Outcome.EXCEPTION));
+    assertEquals(4, counter.getLatency().getCount());
+  }
+
+  /**
+   * Tests counting of single and batch checks of {@link PermissionActionCheck}.
+   */
+  @Test
+  public void testPermissionActionCheck() {
+    PermissionActionCheck<PermissionObject> delete = new PermissionActionCheck<>("repository:delete");
+    assertTrue(delete.isPermitted("123"));
+    assertEquals(1, delete.isPermitted(Arrays.asList("123", "abc", "xyz")).cardinality());
+
+    PermissionCheckCounters.Counter counter = counter("repository", "delete");
+    assertEquals(2, counter.getCount(Outcome.GRANTED));
+    assertEquals(2, counter.getCount(Outcome.DENIED));
+    assertEquals(4, counter.getLatency().getCount());
+  }
+
+  /**
+   * Tests that checks of further actions are counted by the other counter, if the maximum number is reached.
+   */
+  @Test
+  public void testMaximumSize() {
+    PermissionCheckCounters limited = new PermissionCheckCounters(2);
+    for (int i = 0; i < 5; i++) {
+      limited.record(new TypedPermission("repository", "custom" + i), Outcome.GRANTED, 10L);
+    }
+    limited.record(new TypedPermission("repository", "custom0"), Outcome.DENIED, 10L);
+
+    Collection<PermissionCheckCounters.Counter> all = limited.getCounters();
+    assertEquals(3, all.size());
+
+    PermissionCheckCounters.Counter other = all.stream()
+      .filter(counter -> PermissionCheckCounters.OTHER.equals(counter.getType()))
+      .findFirst()
+      .orElseThrow(AssertionError::new);
+    assertEquals(PermissionCheckCounters.OTHER, other.getAction());
+    assertEquals(3, other.getCount(Outcome.GRANTED));
+    assertEquals(0, other.getCount(Outcome.DENIED));
+  }
+
+  /**
+   * Tests counting of checks, which fail with an exception.
+   */
+  @Test
+  public void testException() {
+    PermissionActionCheck<PermissionObject> read = new PermissionActionCheck<>(
+      "repository:read", new PermissionActionCheckInterceptor<PermissionObject>() {
+        @Override
+        public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+          throw new IllegalStateException("failed");
+        }
+      }
+    );
+    try {
+      read.isPermitted("abc");
+      fail("exception expected");
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+    assertEquals(1, counter("repository", "read").getCount(Outcome.EXCEPTION));
+  }
+
+  /**
+   * Tests that nothing is recorded after the metrics are unregistered.
+   */
+  @Test
+  public void testUnregister() {
+    PermissionMetrics.unregister();
+    new PermissionActionCheck<>("repository:delete").isPermitted("123");
+    assertTrue(counters.getCounters().isEmpty());
+  }
+
+  private PermissionCheckCounters.Counter counter(String type, String action) {
+    Collection<PermissionCheckCounters.Counter> all = counters.getCounters();
+    for (PermissionCheckCounters.Counter counter : all) {
+      if (type.equals(counter.getType()) && action.equals(counter.getAction())) {
+        return counter;
+      }
+    }
+    throw new AssertionError("no counter for " + type + ":" + action);
+  }
+}
@@ -30,6 +30,10 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.Rule;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Unit tests for {@link PermissionCheck}.
  *
@@ -73,6 +77,86 @@ public class PermissionCheckTest {
     assertFalse(new PermissionCheck("other:delete").isPermitted());
   }
 
+  /**
+   * Tests {@link PermissionCheck#isPermittedAsync(java.util.concurrent.Executor)} and
+   * {@link PermissionCheck#checkAsync(java.util.concurrent.Executor)}.
+   */
+  @Test
+  public void testAsync() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertTrue(new PermissionCheck("something:create").isPermittedAsync(executor).join());
+      assertFalse(new PermissionCheck("other:delete").isPermittedAsync(executor).join());
+      new PermissionCheck("something:create").checkAsync(executor).join();
+      try {
+        new PermissionCheck("other:create").checkAsync(executor).join();
+        fail("exception expected");
+      } catch (CompletionException ex) {
+        assertTrue(ex.getCause() instanceof AuthorizationException);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Tests {@link PermissionCheck#decide()}.
+   */
+  @Test
+  public void testDecide() {
+    PermissionDecision granted = new PermissionCheck("repository:create:abc").decide();
+    assertTrue(granted.isGranted());
+    assertEquals("repository", granted.getType());
+    assertEquals("create", granted.getAction());
+    assertEquals("abc", granted.getId());
+
+    PermissionAction<PermissionObject> action = new PermissionAction<>("other", "create");
+    PermissionDecision denied = action.check().decide();
+    assertTrue(denied.isDenied());
+    assertEquals("other", denied.getType());
+    assertEquals("create", denied.getAction());
+    assertNull(denied.getId());
+    assertSame(denied, action.check().decide());
+
+    PermissionDecision deniedForId = action.check("abc").decide();
+    assertTrue(deniedForId.isDenied());
+    assertEquals("abc", deniedForId.getId());
+  }
+
+  /**
+   * Tests that {@link PermissionCheck#check()} throws a {@link PermissionDeniedException}, if it is enabled, and that
+   * every denial gets its own exception.
+   */
+  @Test
+  public void testCheckWithPermissionDeniedException() {
+    PermissionDeniedException.enable();
+    try {
+      PermissionAction<PermissionObject> action = new PermissionAction<>("other", "create");
+      PermissionDeniedException first = assertDenied(action.check());
+      assertEquals(0, first.getStackTrace().length);
+      assertEquals("Subject does not have permission [other:create]", first.getMessage());
+      first.addSuppressed(new IllegalStateException("close failed"));
+      PermissionDeniedException second = assertDenied(action.check());
+      assertNotSame(first, second);
+      assertSame(first.getDecision(), second.getDecision());
+      assertEquals(0, second.getSuppressed().length);
+      assertEquals("abc", assertDenied(action.check("abc")).getDecision().getId());
+      new PermissionCheck("something:create").check();
+    } finally {
+      PermissionDeniedException.disable();
+    }
+  }
+
+  private PermissionDeniedException assertDenied(PermissionCheck check) {
+    try {
+      check.check();
+      fail("exception expected");
+      return null;
+    } catch (PermissionDeniedException ex) {
+      return ex;
+    }
+  }
+
   /**
    * Tests {@link PermissionCheck#asShiroString()}
    */
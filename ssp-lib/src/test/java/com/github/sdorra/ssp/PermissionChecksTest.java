@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.shiro.ShiroRule;
+import com.github.sdorra.shiro.SubjectAware;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.subject.Subject;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermissionChecks}.
+ *
+ * @author Sebastian Sdorra
+ */
+@SubjectAware(
+  username = "trillian",
+  password = "secret",
+  configuration = "classpath:com/github/sdorra/ssp/shiro-001.ini"
+)
+public class PermissionChecksTest {
+
+  @Rule
+  public ShiroRule shiro = new ShiroRule();
+
+  private final PermissionAction<PermissionObject> create = new PermissionAction<>("repository", "create");
+  private final PermissionAction<PermissionObject> delete = new PermissionAction<>("repository", "delete");
+  private final PermissionAction<PermissionObject> read = new PermissionAction<>("something", "read");
+
+  /**
+   * Tests {@link PermissionChecks#anyOf(PermissionCheck...)}.
+   */
+  @Test
+  public void testAnyOf() {
+    assertTrue(PermissionChecks.anyOf(create.check("123"), delete.check("123")).isPermitted());
+    assertFalse(PermissionChecks.anyOf(create.check("123"), delete.check("abc")).isPermitted());
+    assertFalse(PermissionChecks.anyOf().isPermitted());
+  }
+
+  /**
+   * Tests {@link PermissionChecks#allOf(PermissionCheck...)}.
+   */
+  @Test
+  public void testAllOf() {
+    assertTrue(PermissionChecks.allOf(create.check("abc"), delete.check("123"), read.check()).isPermitted());
+    assertFalse(PermissionChecks.allOf(create.check("abc"), delete.check("abc")).isPermitted());
+    assertTrue(PermissionChecks.allOf().isPermitted());
+  }
+
+  /**
+   * Tests nested composites of different types.
+   */
+  @Test
+  public void testNested() {
+    PermissionChecks checks = PermissionChecks.anyOf(create.check("123"), delete.check("123")).and(read.check());
+    assertTrue(checks.isPermitted());
+    assertEquals("allOf[anyOf[repository:create:123, repository:delete:123], something:read]", checks.toString());
+
+    assertFalse(PermissionChecks.anyOf(create.check("123")).and(read.check()).isPermitted());
+    assertTrue(PermissionChecks.allOf(create.check("123")).or(PermissionChecks.allOf(read.check())).isPermitted());
+  }
+
+  /**
+   * Tests that guards are applied and are not asked, if the result is already decided.
+   */
+  @Test
+  public void testGuards() {
+    CountingInterceptor interceptor = new CountingInterceptor();
+    PermissionAction<PermissionObject> guarded = new PermissionAction<>(
+      new TypedPermission("repository", "delete"), interceptor
+    );
+
+    assertTrue(PermissionChecks.anyOf(create.check("abc"), guarded.check("123")).isPermitted());
+    assertEquals(0, interceptor.calls.get());
+
+    assertFalse(PermissionChecks.allOf(create.check("abc"), guarded.check("xyz")).isPermitted());
+    assertEquals(1, interceptor.calls.get());
+
+    assertFalse(PermissionChecks.allOf(create.check("123"), guarded.check("123")).isPermitted());
+    assertEquals(1, interceptor.calls.get());
+  }
+
+  /**
+   * Tests {@link PermissionChecks#check()}.
+   */
+  @Test
+  public void testCheck() {
+    PermissionChecks.anyOf(create.check("abc")).check();
+    try {
+      PermissionChecks.allOf(create.check("abc"), delete.check("abc")).check();
+      fail("exception expected");
+    } catch (UnauthorizedException ex) {
+      assertEquals(
+        "Subject does not have permissions allOf[repository:create:abc, repository:delete:abc]", ex.getMessage()
+      );
+    }
+  }
+
+  /**
+   * Tests that {@link PermissionChecks#check()} throws the {@link PermissionDeniedException} with the decision of the
+   * denied check, if it is enabled.
+   */
+  @Test
+  public void testCheckWithPermissionDeniedException() {
+    PermissionDeniedException.enable();
+    try {
+      PermissionChecks.allOf(create.check("abc"), delete.check("abc")).check();
+      fail("exception expected");
+    } catch (PermissionDeniedException ex) {
+      assertEquals("delete", ex.getDecision().getAction());
+      assertEquals("abc", ex.getDecision().getId());
+      assertEquals(
+        "Subject does not have permissions allOf[repository:create:abc, repository:delete:abc]", ex.getMessage()
+      );
+    } finally {
+      PermissionDeniedException.disable();
+    }
+  }
+
+  /**
+   * Tests that every asked check is recorded by the metrics and that any of stops at the first granted check.
+   */
+  @Test
+  public void testMetrics() {
+    List<String> recorded = new ArrayList<>();
+    PermissionMetrics.register((Permission permission, PermissionCheckMetrics.Outcome outcome, long nanos) ->
+      recorded.add(permission + "=" + outcome)
+    );
+    try {
+      assertTrue(PermissionChecks.anyOf(create.check("abc"), delete.check("123")).isPermitted());
+      assertEquals(1, recorded.size());
+
+      assertFalse(PermissionChecks.anyOf(create.check("123"), delete.check("abc")).isPermitted());
+      assertEquals(3, recorded.size());
+    } finally {
+      PermissionMetrics.unregister();
+    }
+  }
+
+  private static class CountingInterceptor implements PermissionActionCheckInterceptor<PermissionObject> {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+      calls.incrementAndGet();
+      return !"xyz".equals(id) && delegate.getAsBoolean();
+    }
+  }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.ssp.DecisionCachesTest.Document;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermissionContext}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class PermissionContextTest {
+
+  private final CountingRealm realm = new CountingRealm("document:read:42");
+  private final PermissionAction<Document> read = new PermissionAction<>("document", "read");
+
+  private Subject subject;
+
+  @Before
+  public void setUp() {
+    subject = new Subject.Builder(new DefaultSecurityManager(realm))
+      .principals(new SimplePrincipalCollection("trillian", "test"))
+      .authenticated(true)
+      .buildSubject();
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
+  }
+
+  /**
+   * Tests that the subject of the context is used without a bound subject and that decisions are memoized.
+   */
+  @Test
+  public void testMemoize() {
+    try (PermissionContext context = PermissionContext.open(subject)) {
+      assertTrue(read.check("42").isPermitted());
+      assertTrue(read.check("42").isPermitted());
+      assertTrue(read.actionCheck().isPermitted("42"));
+      read.check("42").check();
+      assertFalse(read.check("21").isPermitted());
+      assertFalse(read.actionCheck().isPermitted("21"));
+      assertEquals(2, realm.getCalls());
+      assertEquals(2, context.size());
+    }
+  }
+
+  /**
+   * Tests that checks, which are constructed only with a type and have no action, are memoized.
+   */
+  @Test
+  public void testMemoizeWithoutAction() {
+    try (PermissionContext context = PermissionContext.open(subject)) {
+      PermissionActionCheck<Document> check = new PermissionActionCheck<>("document");
+      assertFalse(check.isPermitted("42"));
+      assertFalse(check.isPermitted("42"));
+      assertTrue(read.actionCheck().isPermitted("42"));
+      assertEquals(2, realm.getCalls());
+      assertEquals(2, context.size());
+    }
+  }
+
+  /**
+   * Tests that a memoized denial throws an {@link UnauthorizedException}.
+   */
+  @Test(expected = UnauthorizedException.class)
+  public void testCheckDenied() {
+    try (PermissionContext context = PermissionContext.open(subject)) {
+      assertFalse(read.check("21").isPermitted());
+      read.check("21").check();
+    }
+  }
+
+  /**
+   * Tests that all decisions are dropped, when the context is closed.
+   */
+  @Test
+  public void testClose() {
+    ThreadContext.bind(subject);
+    try (PermissionContext context = PermissionContext.open()) {
+      assertTrue(read.check("42").isPermitted());
+    }
+    assertNull(PermissionContext.current());
+    try (PermissionContext context = PermissionContext.open()) {
+      assertTrue(read.check("42").isPermitted());
+    }
+    assertEquals(2, realm.getCalls());
+  }
+
+  /**
+   * Tests that a nested context restores the outer context.
+   */
+  @Test
+  public void testNested() {
+    try (PermissionContext outer = PermissionContext.open(subject)) {
+      try (PermissionContext inner = PermissionContext.open(subject)) {
+        assertSame(inner, PermissionContext.current());
+      }
+      assertSame(outer, PermissionContext.current());
+    }
+    assertNull(PermissionContext.current());
+  }
+
+  /**
+   * Tests that the memo grows beyond its initial capacity.
+   */
+  @Test
+  public void testResize() {
+    try (PermissionContext context = PermissionContext.open(subject)) {
+      for (int i = 0; i < 100; i++) {
+        context.put(read.getPermission(), String.valueOf(i), false, i % 2 == 0);
+      }
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i % 2 == 0, context.get(read.getPermission(), String.valueOf(i), false));
+        assertNull(context.get(read.getPermission(), String.valueOf(i), true));
+      }
+      assertEquals(100, context.size());
+    }
+  }
+
+  /**
+   * Tests that the memo is bounded and starts over, if it is full.
+   */
+  @Test
+  public void testMaximumSize() {
+    try (PermissionContext context = PermissionContext.open(subject)) {
+      for (int i = 0; i < PermissionContext.MAXIMUM_SIZE * 10; i++) {
+        context.put(read.getPermission(), String.valueOf(i), false, true);
+        assertTrue(context.size() <= PermissionContext.MAXIMUM_SIZE);
+      }
+      String last = String.valueOf(PermissionContext.MAXIMUM_SIZE * 10 - 1);
+      assertEquals(Boolean.TRUE, context.get(read.getPermission(), last, false));
+      assertNull(context.get(read.getPermission(), "0", false));
+    }
+  }
+
+  /**
+   * Tests that decisions are memoized by type and action and not by the identity of the permission.
+   */
+  @Test
+  public void testEqualPermissions() {
+    try (PermissionContext context = PermissionContext.open(subject)) {
+      assertTrue(new PermissionActionCheck<Document>("document:read").isPermitted("42"));
+      assertTrue(new PermissionActionCheck<Document>("document:read").isPermitted("42"));
+      assertTrue(read.check("42").isPermitted());
+      assertEquals(1, realm.getCalls());
+      assertEquals(1, context.size());
+    }
+  }
+
+  /**
+   * Tests that decisions of anonymous subjects are not memoized.
+   */
+  @Test
+  public void testAnonymous() {
+    Subject anonymous = new Subject.Builder(new DefaultSecurityManager(realm)).buildSubject();
+    try (PermissionContext context = PermissionContext.open(anonymous)) {
+      assertFalse(read.check("42").isPermitted());
+      assertEquals(0, context.size());
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermissionIndex}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class PermissionIndexTest {
+
+  private static final String[] GRANTS = {
+    "*", "repository", "repository:*", "repository:read", "repository:read,write", "repository:read:*",
+    "repository:read:abc", "repository:read:ABC", "repository:*:abc", "repository:read:abc,def", "*:read:abc",
+    "repository:read:abc:sub", "repository:delete:123", "other:read:abc", "repository:*:*:sub", "*:*:123",
+    "repository,other:write"
+  };
+
+  private static final Permission[] REQUESTS = {
+    new TypedPermission("repository", "read"),
+    new TypedPermission("repository", "read", "abc"),
+    new TypedPermission("repository", "READ", "Abc"),
+    new TypedPermission("repository", "read", "abc,def"),
+    new TypedPermission("repository", "read", "abc:sub"),
+    new TypedPermission("repository", "read", ""),
+    new TypedPermission("repository", "write", "xyz"),
+    new TypedPermission("repository", "delete", "123"),
+    new TypedPermission("other", "write", "123"),
+    new TypedPermission("other", "read", "abc"),
+    TypedPermission.fromTypedAction("repository"),
+    new WildcardPermission("repository"),
+    new WildcardPermission("repository:read"),
+    new WildcardPermission("repository:read:abc:sub"),
+    new WildcardPermission("repository:read,write:abc"),
+    new WildcardPermission("*"),
+    new WildcardPermission("other:*"),
+    new WildcardPermission("unknown:read:abc")
+  };
+
+  /**
+   * Tests that the index implies exactly the same requests as a linear scan over single grants.
+   */
+  @Test
+  public void testSingleGrant() {
+    for (String grant : GRANTS) {
+      assertImpliesLikeLinearScan(Collections.singletonList(new WildcardPermission(grant)));
+    }
+  }
+
+  /**
+   * Tests that the index implies exactly the same requests as a linear scan over pairs of grants.
+   */
+  @Test
+  public void testPairsOfGrants() {
+    for (String first : GRANTS) {
+      for (String second : GRANTS) {
+        assertImpliesLikeLinearScan(Arrays.asList(new WildcardPermission(first), new WildcardPermission(second)));
+      }
+    }
+  }
+
+  /**
+   * Tests an index with typed permissions and a permission, which could not be indexed.
+   */
+  @Test
+  public void testWithTypedAndUnindexedGrants() {
+    Permission custom = p -> p.toString().endsWith(":custom");
+    List<Permission> grants = Arrays.asList(new TypedPermission("repository", "read", "abc"), custom);
+    PermissionIndex index = new PermissionIndex(grants);
+    assertTrue(index.implies(new TypedPermission("repository", "read", "abc")));
+    assertTrue(index.implies(new TypedPermission("repository", "write", "custom")));
+    assertFalse(index.implies(new TypedPermission("repository", "read", "def")));
+    assertEquals(grants, index.getPermissions());
+  }
+
+  /**
+   * Tests an index without grants.
+   */
+  @Test
+  public void testEmpty() {
+    PermissionIndex index = new PermissionIndex(Collections.emptyList());
+    assertFalse(index.implies(new TypedPermission("repository", "read")));
+  }
+
+  private void assertImpliesLikeLinearScan(List<Permission> grants) {
+    PermissionIndex index = new PermissionIndex(new ArrayList<>(grants));
+    for (Permission request : REQUESTS) {
+      boolean expected = false;
+      for (Permission grant : grants) {
+        expected |= grant.implies(request);
+      }
+      assertEquals(grants + " -> " + request, expected, index.implies(request));
+    }
+  }
+}
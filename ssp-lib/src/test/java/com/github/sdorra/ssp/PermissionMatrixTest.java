@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.shiro.ShiroRule;
+import com.github.sdorra.shiro.SubjectAware;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermissionMatrix}.
+ *
+ * @author Sebastian Sdorra
+ */
+@SubjectAware(
+  username = "trillian",
+  password = "secret",
+  configuration = "classpath:com/github/sdorra/ssp/shiro-001.ini"
+)
+public class PermissionMatrixTest {
+
+  @Rule
+  public ShiroRule shiro = new ShiroRule();
+
+  /**
+   * Tests that the matrix contains the same decisions as single checks.
+   */
+  @Test
+  public void testMatchesSingleChecks() {
+    List<Repository> items = Arrays.asList(
+      new Repository("abc"), new Repository("ABC"), new Repository("123"), new Repository("abc,123"),
+      new Repository(null), new Repository("xyz")
+    );
+    List<PermissionActionCheck<Repository>> checks = Arrays.asList(
+      new PermissionActionCheck<>("repository:create"),
+      new PermissionActionCheck<>("repository:delete"),
+      new PermissionActionCheck<>("something:read"),
+      new PermissionActionCheck<>("other:read")
+    );
+    PermissionMatrix<Repository> matrix = PermissionMatrix.of(items, checks);
+    assertEquals(items.size(), matrix.size());
+    assertEquals(Arrays.asList("create", "delete", "read", "read"), matrix.getActions());
+    for (int item = 0; item < items.size(); item++) {
+      for (int action = 0; action < checks.size(); action++) {
+        assertEquals(
+          item + "/" + action, checks.get(action).isPermitted(items.get(item)), matrix.isPermitted(item, action)
+        );
+      }
+    }
+  }
+
+  /**
+   * Tests that guards are applied to the decisions of the matrix.
+   */
+  @Test
+  public void testGuard() {
+    PermissionActionCheck<Repository> delete = new PermissionActionCheck<>("repository:delete", new DenyAll());
+    PermissionMatrix<Repository> matrix = PermissionMatrix.of(Arrays.asList(new Repository("123")), delete);
+    assertFalse(matrix.isPermitted(0, "delete"));
+  }
+
+  /**
+   * Tests that the ids are compared with the case rules of the permission resolver.
+   */
+  @Test
+  public void testCaseSensitiveResolver() {
+    GrantingRealm realm = new GrantingRealm("repository:read:AbC,def", "repository:write:GHI,jkl");
+    realm.setPermissionResolver(new WildcardPermissionResolver(true));
+    assertMatchesRealm(subject(realm));
+    assertMatchesRealm(subject(new GrantingRealm("repository:read:AbC,def", "repository:write:GHI,jkl")));
+  }
+
+  /**
+   * Tests that realms, which decide differently than their grants, are asked.
+   */
+  @Test
+  public void testRealmOverridesIsPermitted() {
+    Subject subject = subject(new DenyXyzRealm("repository:read", "repository:write:xyz,abc"));
+    assertMatchesRealm(subject);
+    PermissionMatrix<Repository> matrix = PermissionMatrix.of(
+      subject, Arrays.asList(new Repository("xyz")), Arrays.asList(new PermissionActionCheck<>("repository:read"))
+    );
+    assertFalse(matrix.isPermitted(0, "read"));
+  }
+
+  private void assertMatchesRealm(Subject subject) {
+    List<String> ids = Arrays.asList("AbC", "abc", "ABC", "def", "DEF", "GHI", "ghi", "jkl", "xyz");
+    List<Repository> items = ids.stream().map(Repository::new).collect(Collectors.toList());
+    List<PermissionActionCheck<Repository>> checks = Arrays.asList(
+      new PermissionActionCheck<>("repository:read"),
+      new PermissionActionCheck<>("repository:write")
+    );
+    PermissionMatrix<Repository> matrix = PermissionMatrix.of(subject, items, checks);
+    for (int item = 0; item < ids.size(); item++) {
+      for (int action = 0; action < checks.size(); action++) {
+        TypedPermission permission = checks.get(action).getPermission().withId(ids.get(item));
+        String value = permission.toString();
+        assertEquals(value, subject.isPermitted(value), matrix.isPermitted(item, action));
+      }
+    }
+  }
+
+  private Subject subject(Realm realm) {
+    return new Subject.Builder(new DefaultSecurityManager(realm))
+      .principals(new SimplePrincipalCollection("trillian", "test"))
+      .authenticated(true)
+      .buildSubject();
+  }
+
+  private static class DenyXyzRealm extends GrantingRealm {
+
+    private DenyXyzRealm(String... permissions) {
+      super(permissions);
+    }
+
+    @Override
+    protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+      return !permission.toString().endsWith(":xyz") && super.isPermitted(permission, info);
+    }
+  }
+
+  private static class DenyAll implements PermissionActionCheckInterceptor<Repository> {
+
+    @Override
+    public boolean isPermitted(Subject subject, Repository item, BooleanSupplier delegate) {
+      return false;
+    }
+  }
+
+  private static class Repository implements PermissionObject {
+
+    private final String id;
+
+    private Repository(String id) {
+      this.id = id;
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.AllPermission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermittedIds}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class PermittedIdsTest {
+
+  private static final String[] GRANTS = {
+    "*", "repository", "repository:*", "repository:read", "repository:read,write", "repository:read:*",
+    "repository:read:abc", "repository:read:ABC", "repository:*:abc", "repository:read:abc,def", "*:read:abc",
+    "repository:read:abc:sub", "repository:read:abc:*", "repository:delete:123", "other:read:abc", "*:*:123",
+    "repository,other:write"
+  };
+
+  private static final String[] IDS = {"abc", "def", "123", "xyz"};
+
+  private static final TypedPermission READ = new TypedPermission("repository", "read");
+
+  /**
+   * Tests that the permitted ids of every single grant match {@link WildcardPermission#implies(Permission)}.
+   */
+  @Test
+  public void testMatchesImplies() {
+    for (String value : GRANTS) {
+      WildcardPermission grant = new WildcardPermission(value);
+      PermittedIds permitted = PermittedIds.of(READ, Collections.singletonList(grant), false);
+      assertFalse(value, permitted.isPostFilterRequired());
+      for (String id : IDS) {
+        boolean expected = grant.implies(READ.withId(id));
+        assertEquals(value + " -> " + id, expected, permitted.isAll() || permitted.getIds().contains(id));
+      }
+    }
+  }
+
+  /**
+   * Tests {@link PermittedIds#isAny(TypedPermission, List)}.
+   */
+  @Test
+  public void testIsAny() {
+    for (String value : GRANTS) {
+      WildcardPermission grant = new WildcardPermission(value);
+      PermittedIds permitted = PermittedIds.of(READ, Collections.singletonList(grant), false);
+      assertEquals(value, !permitted.isEmpty(), PermittedIds.isAny(READ, Collections.singletonList(grant)));
+    }
+    Permission custom = permission -> permission.equals(READ);
+    assertTrue(PermittedIds.isAny(READ, Collections.singletonList(custom)));
+    assertFalse(PermittedIds.isAny(READ, Collections.emptyList()));
+  }
+
+  /**
+   * Tests that the ids of multiple grants are merged.
+   */
+  @Test
+  public void testMerge() {
+    List<Permission> grants = Arrays.asList(
+      new WildcardPermission("repository:read:abc"),
+      new TypedPermission("repository", "read", "def"),
+      new WildcardPermission("repository:write:xyz")
+    );
+    PermittedIds permitted = PermittedIds.of(READ, grants, false);
+    assertFalse(permitted.isAll());
+    assertFalse(permitted.isEmpty());
+    assertEquals(new HashSet<>(Arrays.asList("abc", "def")), permitted.getIds());
+  }
+
+  /**
+   * Tests that unknown grants and guards require post filtering.
+   */
+  @Test
+  public void testPostFilterRequired() {
+    assertTrue(PermittedIds.of(READ, Collections.emptyList(), false).isEmpty());
+    assertTrue(PermittedIds.of(READ, Collections.emptyList(), true).isPostFilterRequired());
+
+    PermittedIds unknownGrants = PermittedIds.of(READ, null, false);
+    assertTrue(unknownGrants.isAll());
+    assertTrue(unknownGrants.isPostFilterRequired());
+
+    Permission custom = permission -> false;
+    PermittedIds customGrant = PermittedIds.of(READ, Collections.singletonList(custom), false);
+    assertTrue(customGrant.isAll());
+    assertTrue(customGrant.isPostFilterRequired());
+
+    PermittedIds all = PermittedIds.of(READ, Collections.singletonList(new AllPermission()), false);
+    assertTrue(all.isAll());
+    assertFalse(all.isPostFilterRequired());
+  }
+
+  /**
+   * Tests that the ids are returned in the case of the granted permission string.
+   */
+  @Test
+  public void testGrantedCase() {
+    List<Permission> grants = Collections.singletonList(new WildcardGrant("Repository:READ:AbC,def"));
+    PermittedIds permitted = PermittedIds.of(READ, grants, false);
+    assertEquals(new HashSet<>(Arrays.asList("AbC", "def")), permitted.getIds());
+    assertFalse(permitted.isPostFilterRequired());
+    assertTrue(permitted.isPermitted("abc"));
+    assertTrue(permitted.isPermitted("ABC"));
+    assertFalse(permitted.isPermitted("xyz"));
+    assertTrue(PermittedIds.isAny(READ, grants));
+    assertTrue(grants.get(0).implies(READ.withId("abc")));
+  }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.ssp.PermissionCheckMetrics.Outcome;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PrometheusMetricsExporter}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class PrometheusMetricsExporterTest {
+
+  /**
+   * Tests the exported text format.
+   */
+  @Test
+  public void testExport() throws IOException {
+    PermissionCheckCounters counters = new PermissionCheckCounters();
+    TypedPermission read = new TypedPermission("repository", "read");
+    counters.record(read, Outcome.GRANTED, 100);
+    counters.record(read, Outcome.DENIED, 2000000000L);
+    counters.record(new TypedPermission("say \"hello\"", "read"), Outcome.EXCEPTION, 10);
+
+    StringBuilder output = new StringBuilder();
+    new PrometheusMetricsExporter().export(counters, output);
+    String text = output.toString();
+
+    assertTrue(text.contains("# TYPE ssp_permission_checks_total counter\n"));
+    assertTrue(text.contains("ssp_permission_checks_total{type=\"repository\",action=\"read\",outcome=\"granted\"} 1\n"));
+    assertTrue(text.contains("ssp_permission_checks_total{type=\"repository\",action=\"read\",outcome=\"denied\"} 1\n"));
+    assertTrue(text.contains("# TYPE ssp_permission_checks_duration_seconds histogram\n"));
+    assertTrue(text.contains("ssp_permission_checks_duration_seconds_bucket{type=\"repository\",action=\"read\",le=\"1.28E-7\"} 1\n"));
+    assertTrue(text.contains("ssp_permission_checks_duration_seconds_bucket{type=\"repository\",action=\"read\",le=\"+Inf\"} 2\n"));
+    assertTrue(text.contains("ssp_permission_checks_duration_seconds_count{type=\"repository\",action=\"read\"} 2\n"));
+    assertTrue(text.contains("ssp_permission_checks_duration_seconds_sum{type=\"repository\",action=\"read\"} 2.0000001\n"));
+    assertTrue(text.contains("type=\"say \\\"hello\\\"\""));
+  }
+}
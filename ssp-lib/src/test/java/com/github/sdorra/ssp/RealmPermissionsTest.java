@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RealmPermissions}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class RealmPermissionsTest {
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
+  }
+
+  /**
+   * Tests that typed permissions are passed as object to realms with the default resolver.
+   */
+  @Test
+  public void testDefaultResolver() {
+    Subject subject = bind(new GrantingRealm("repositories:read:ABC"));
+    assertTrue(RealmPermissions.isTyped(subject));
+
+    PermissionActionCheck<PermissionObject> read = new PermissionActionCheck<>("repositories:read");
+    assertTrue(read.isPermitted("ABC"));
+    assertTrue(read.isPermitted("abc"));
+  }
+
+  /**
+   * Tests that checks with a case sensitive resolver decide like the permission string.
+   */
+  @Test
+  public void testCaseSensitiveResolver() {
+    GrantingRealm realm = new GrantingRealm("repositories:read:ABC");
+    realm.setPermissionResolver(new WildcardPermissionResolver(true));
+    Subject subject = bind(realm);
+    assertFalse(RealmPermissions.isTyped(subject));
+
+    PermissionActionCheck<PermissionObject> read = new PermissionActionCheck<>("repositories:read");
+    assertTrue(read.isPermitted("ABC"));
+    assertFalse(read.isPermitted("abc"));
+    read.check("ABC");
+    assertEquals(bits(0), read.isPermitted(Arrays.asList("ABC", "abc")));
+    assertTrue(new PermissionCheck("repositories:read:ABC").isPermitted());
+    assertFalse(new PermissionCheck("repositories:read:abc").isPermitted());
+    assertTrue(PermissionChecks.allOf(new PermissionCheck("repositories:read:ABC")).isPermitted());
+  }
+
+  /**
+   * Tests that a resolver, which resolves the strings to permissions of the domain, is used.
+   */
+  @Test(expected = UnauthorizedException.class)
+  public void testDomainResolver() {
+    GrantingRealm realm = new GrantingRealm("repositories:read:42");
+    realm.setPermissionResolver(RepositoryPermission::new);
+    bind(realm);
+
+    PermissionActionCheck<PermissionObject> read = new PermissionActionCheck<>("repositories:read");
+    assertTrue(read.isPermitted("42"));
+    assertFalse(read.isPermitted("21"));
+    read.check("21");
+  }
+
+  private static BitSet bits(int... indexes) {
+    BitSet bits = new BitSet();
+    for (int index : indexes) {
+      bits.set(index);
+    }
+    return bits;
+  }
+
+  private Subject bind(Realm realm) {
+    Subject subject = new Subject.Builder(new DefaultSecurityManager(realm))
+      .principals(new SimplePrincipalCollection("trillian", "test"))
+      .authenticated(true)
+      .buildSubject();
+    ThreadContext.bind(subject);
+    return subject;
+  }
+
+  /**
+   * Permission of the domain, which implies only other permissions of the domain with the same value.
+   */
+  private static class RepositoryPermission implements Permission {
+
+    private final String value;
+
+    private RepositoryPermission(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean implies(Permission permission) {
+      return permission instanceof RepositoryPermission && value.equals(((RepositoryPermission) permission).value);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.shiro.ShiroRule;
+import com.github.sdorra.shiro.SubjectAware;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit tests for {@link SubjectScope}.
+ *
+ * @author Sebastian Sdorra
+ */
+@SubjectAware(
+  username = "trillian",
+  password = "secret",
+  configuration = "classpath:com/github/sdorra/ssp/shiro-001.ini"
+)
+public class SubjectScopeTest {
+
+  @Rule
+  public ShiroRule shiro = new ShiroRule();
+
+  /**
+   * Tests that {@link SubjectScope#current()} falls back to {@link SecurityUtils}.
+   */
+  @Test
+  public void testCurrentWithoutScope() {
+    assertSame(SecurityUtils.getSubject(), SubjectScope.current());
+  }
+
+  /**
+   * Tests that checks on a thread without subject use the subject of the scope.
+   */
+  @Test
+  public void testRun() throws InterruptedException {
+    Subject subject = SecurityUtils.getSubject();
+    AtomicReference<Subject> current = new AtomicReference<>();
+    AtomicReference<Boolean> permitted = new AtomicReference<>();
+
+    Thread thread = new Thread(() -> {
+      ThreadContext.remove();
+      SubjectScope.run(subject, () -> {
+        current.set(SubjectScope.current());
+        permitted.set(new PermissionActionCheck<>("repository:create").isPermitted("abc"));
+      });
+    });
+    thread.start();
+    thread.join();
+
+    assertSame(subject, current.get());
+    assertTrue(permitted.get());
+  }
+
+  /**
+   * Tests that code inside the scope, which asks shiro for the subject, sees the subject of the scope on runtimes
+   * without scoped values.
+   */
+  @Test
+  public void testSecurityUtilsInScope() throws InterruptedException {
+    assumeFalse(SubjectScope.isScopedValueSupported());
+    Subject subject = SecurityUtils.getSubject();
+    AtomicReference<Subject> current = new AtomicReference<>();
+
+    Thread thread = new Thread(() -> {
+      ThreadContext.remove();
+      SubjectScope.run(subject, () -> current.set(SecurityUtils.getSubject()));
+      assertNull(ThreadContext.getSubject());
+    });
+    thread.start();
+    thread.join();
+
+    assertSame(subject, current.get());
+  }
+
+  /**
+   * Tests that the preview versions of scoped values are not used.
+   */
+  @Test
+  public void testScopedValueOnlyIfFinal() {
+    String version = System.getProperty("java.specification.version");
+    assumeTrue(version.startsWith("1.") || Integer.parseInt(version) < 25);
+    assertFalse(SubjectScope.isScopedValueSupported());
+  }
+
+  /**
+   * Tests {@link SubjectScope#call(Subject, java.util.concurrent.Callable)}.
+   */
+  @Test
+  public void testCall() throws Exception {
+    Subject subject = SecurityUtils.getSubject();
+    assertTrue(SubjectScope.call(subject, () -> new PermissionCheck("repository:create:abc").isPermitted()));
+    assertFalse(SubjectScope.call(subject, () -> new PermissionCheck("repository:create:123").isPermitted()));
+  }
+
+  /**
+   * Tests that the exception of the task is passed to the caller.
+   */
+  @Test(expected = IOException.class)
+  public void testCallWithException() throws Exception {
+    SubjectScope.call(SecurityUtils.getSubject(), () -> {
+      throw new IOException("failed");
+    });
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TypedPermission}.
+ *
+ * @author Sebastian Sdorra
+ */
+public class TypedPermissionTest {
+
+  private static final String[] GRANTS = {
+    "*", "repository", "repository:*", "repository:read", "repository:read,write", "repository:read:*",
+    "repository:read:abc", "repository:read:ABC", "repository:*:abc", "repository:read:abc,def", "*:read:abc",
+    "repository:read:abc:sub", "repository:delete:123", "other:read:abc"
+  };
+
+  private static final TypedPermission[] REQUESTS = {
+    new TypedPermission("repository", "read"),
+    new TypedPermission("repository", "read", "abc"),
+    new TypedPermission("repository", "READ", "Abc"),
+    new TypedPermission("repository", "read", "abc,def"),
+    new TypedPermission("repository", "read", "abc:sub"),
+    new TypedPermission("repository", "read", ""),
+    new TypedPermission("repository", "read", null),
+    new TypedPermission("repository", "read:write", "abc"),
+    new TypedPermission("repository", "delete", "123"),
+    new TypedPermission("repository", "write", " abc "),
+    TypedPermission.fromTypedAction("repository:read").withId("abc"),
+    TypedPermission.fromTypedAction("repository").withId("read")
+  };
+
+  /**
+   * Tests that every grant implies a {@link TypedPermission} exactly if it implies the parsed string.
+   */
+  @Test
+  public void testImpliedLikeWildcardPermission() {
+    for (String grant : GRANTS) {
+      WildcardPermission granted = new WildcardPermission(grant);
+      for (TypedPermission request : REQUESTS) {
+        WildcardPermission parsed = new WildcardPermission(request.toString());
+        assertEquals(grant + " -> " + request, granted.implies(parsed), granted.implies(request));
+      }
+    }
+  }
+
+  /**
+   * Tests that a {@link TypedPermission} used as grant behaves like the parsed string.
+   */
+  @Test
+  public void testImpliesLikeWildcardPermission() {
+    for (TypedPermission grant : REQUESTS) {
+      WildcardPermission parsed = new WildcardPermission(grant.toString());
+      for (TypedPermission request : REQUESTS) {
+        assertEquals(grant + " -> " + request, parsed.implies(request), grant.implies(request));
+      }
+    }
+  }
+
+  /**
+   * Tests {@link TypedPermission#toString()}.
+   */
+  @Test
+  public void testToString() {
+    assertEquals("repository:create", new TypedPermission("repository", "create").toString());
+    assertEquals("repository:read:abc", new TypedPermission("repository", "read", "abc").toString());
+    assertEquals("repository:read:", new TypedPermission("repository", "read", null).toString());
+    assertEquals("repository:abc", TypedPermission.fromTypedAction("repository").withId("abc").toString());
+  }
+
+  /**
+   * Tests {@link TypedPermission#withId(String)}.
+   */
+  @Test
+  public void testWithId() {
+    TypedPermission read = new TypedPermission("repository", "read");
+    TypedPermission permission = read.withId("abc");
+    assertEquals("repository", permission.getType());
+    assertEquals("read", permission.getAction());
+    assertEquals("abc", permission.getId());
+    assertNull(read.getId());
+    assertEquals(new TypedPermission("repository", "read", "abc"), permission);
+    assertEquals(new TypedPermission("repository", "read", "abc").hashCode(), permission.hashCode());
+    assertNotEquals(read, permission);
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.shiro.ShiroRule;
+import com.github.sdorra.shiro.SubjectAware;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermissionCheckEvent} and {@link CheckTraces}.
+ *
+ * @author Sebastian Sdorra
+ */
+@SubjectAware(
+  username = "trillian",
+  password = "secret",
+  configuration = "classpath:com/github/sdorra/ssp/shiro-001.ini"
+)
+public class PermissionCheckEventTest {
+
+  private static final String EVENT = "com.github.sdorra.ssp.PermissionCheck";
+
+  @Rule
+  public ShiroRule shiro = new ShiroRule();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * Tests that checks are not traced, if the event is not enabled.
+   */
+  @Test
+  public void testDisabled() throws IOException {
+    assertNull(CheckTraces.start(new TypedPermission("repository", "create"), "abc"));
+
+    try (Recording recording = new Recording()) {
+      recording.start();
+      assertNull(CheckTraces.start(new TypedPermission("repository", "create"), "abc"));
+      assertTrue(new PermissionAction<>("repository", "create").check("abc").isPermitted());
+      recording.stop();
+
+      assertTrue(events(recording).isEmpty());
+    }
+  }
+
+  /**
+   * Tests that an enabled event records type, action, id and decision of every check.
+   */
+  @Test
+  public void testEnabled() throws IOException {
+    PermissionAction<Repository> create = new PermissionAction<>("repository", "create");
+    PermissionAction<Repository> delete = new PermissionAction<>(
+      new TypedPermission("repository", "delete"), new DenyInterceptor()
+    );
+
+    try (Recording recording = new Recording()) {
+      recording.enable(EVENT).withoutThreshold();
+      recording.start();
+      assertNotNull(CheckTraces.start(create.getPermission(), "abc"));
+      assertTrue(create.check("abc").isPermitted());
+      assertFalse(delete.actionCheck().isPermitted("123"));
+      recording.stop();
+
+      List<RecordedEvent> events = events(recording);
+      assertEquals(2, events.size());
+
+      RecordedEvent granted = events.get(0);
+      assertEquals("repository", granted.getString("type"));
+      assertEquals("create", granted.getString("action"));
+      assertEquals("abc", granted.getString("id"));
+      assertEquals("GRANTED", granted.getString("decision"));
+      assertFalse(granted.getBoolean("guarded"));
+      assertTrue(granted.getLong("realmDuration") >= 0);
+
+      RecordedEvent denied = events.get(1);
+      assertEquals("delete", denied.getString("action"));
+      assertEquals("123", denied.getString("id"));
+      assertEquals("DENIED", denied.getString("decision"));
+      assertTrue(denied.getBoolean("guarded"));
+    }
+  }
+
+  /**
+   * Tests that traced checks with a cacheable guard use the decisions of the permission context.
+   */
+  @Test
+  public void testEnabledWithContext() throws IOException {
+    CountingInterceptor interceptor = new CountingInterceptor();
+    PermissionAction<Repository> delete = new PermissionAction<>(
+      new TypedPermission("repository", "delete"), interceptor
+    );
+
+    try (Recording recording = new Recording()) {
+      recording.enable(EVENT).withoutThreshold();
+      recording.start();
+      try (PermissionContext context = PermissionContext.open(SecurityUtils.getSubject())) {
+        assertTrue(delete.check("123").isPermitted());
+        assertTrue(delete.actionCheck().isPermitted("123"));
+        assertTrue(delete.actionCheck().isPermitted(new Repository("123")));
+      }
+      recording.stop();
+
+      assertEquals(1, interceptor.calls.get());
+      assertEquals(3, events(recording).size());
+    }
+  }
+
+  private List<RecordedEvent> events(Recording recording) throws IOException {
+    Path file = temporaryFolder.newFile("recording.jfr").toPath();
+    recording.dump(file);
+    return RecordingFile.readAllEvents(file)
+      .stream()
+      .filter(event -> EVENT.equals(event.getEventType().getName()))
+      .collect(Collectors.toList());
+  }
+
+  private static class DenyInterceptor implements PermissionActionCheckInterceptor<Repository> {
+
+    @Override
+    public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+      return false;
+    }
+  }
+
+  private static class CountingInterceptor implements PermissionActionCheckInterceptor<Repository> {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public boolean isPermitted(Subject subject, String id, BooleanSupplier delegate) {
+      calls.incrementAndGet();
+      return delegate.getAsBoolean();
+    }
+
+    @Override
+    public boolean isCacheable() {
+      return true;
+    }
+  }
+
+  private static class Repository implements PermissionObject {
+
+    private final String id;
+
+    private Repository(String id) {
+      this.id = id;
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+  }
+}
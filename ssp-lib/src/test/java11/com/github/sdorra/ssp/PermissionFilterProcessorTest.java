@@ -0,0 +1,351 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Sebastian Sdorra.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.github.sdorra.ssp;
+
+import com.github.sdorra.shiro.ShiroRule;
+import com.github.sdorra.shiro.SubjectAware;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PermissionFilterProcessor}.
+ *
+ * @author Sebastian Sdorra
+ */
+@SubjectAware(
+  username = "trillian",
+  password = "secret",
+  configuration = "classpath:com/github/sdorra/ssp/shiro-001.ini"
+)
+public class PermissionFilterProcessorTest {
+
+  @Rule
+  public ShiroRule shiro = new ShiroRule();
+
+  private ForkJoinPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new ForkJoinPool(2, WithoutSubjectThread::new, null, false);
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Tests that only permitted items are passed to the subscriber on threads without subject.
+   */
+  @Test
+  public void testFilter() throws InterruptedException {
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:create"), pool, 2
+    );
+    RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+
+    try (SubmissionPublisher<Repository> publisher = new SubmissionPublisher<>(pool, 16)) {
+      publisher.subscribe(processor);
+      for (String id : new String[]{"123", "abc", "456", "789", "abc"}) {
+        publisher.submit(new Repository(id));
+      }
+    }
+
+    assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+    assertNull(subscriber.error);
+    assertEquals(List.of("abc", "abc"), subscriber.ids);
+  }
+
+  /**
+   * Tests that the subject is bound to the thread of the executor, which evaluates a batch.
+   */
+  @Test
+  public void testSubjectOfBatch() throws InterruptedException {
+    Subject trillian = SecurityUtils.getSubject();
+    AtomicReference<Subject> bound = new AtomicReference<>();
+    PermissionActionCheckInterceptor<Repository> interceptor = new PermissionActionCheckInterceptor<Repository>() {
+      @Override
+      public BitSet isPermittedItems(Subject subject, Collection<Repository> items, BulkDelegate delegate) {
+        bound.set(ThreadContext.getSubject());
+        return delegate.isPermitted();
+      }
+    };
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:create", interceptor), pool, 2
+    );
+    RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+
+    try (SubmissionPublisher<Repository> publisher = new SubmissionPublisher<>(pool, 16)) {
+      publisher.subscribe(processor);
+      publisher.submit(new Repository("abc"));
+    }
+
+    assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of("abc"), subscriber.ids);
+    assertSame(trillian, bound.get());
+  }
+
+  /**
+   * Tests that a second upstream subscription is cancelled.
+   */
+  @Test
+  public void testSecondUpstream() {
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:create"), Runnable::run, 1
+    );
+    RecordingSubscription first = new RecordingSubscription();
+    RecordingSubscription second = new RecordingSubscription();
+    processor.onSubscribe(first);
+    processor.onSubscribe(second);
+
+    assertFalse(first.cancelled);
+    assertTrue(second.cancelled);
+  }
+
+  /**
+   * Tests that the processor passes no more items than requested by the subscriber.
+   */
+  @Test
+  public void testDemand() throws InterruptedException {
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:delete"), pool, 3
+    );
+    RecordingSubscriber subscriber = new RecordingSubscriber(1);
+    processor.subscribe(subscriber);
+
+    SubmissionPublisher<Repository> publisher = new SubmissionPublisher<>(pool, 16);
+    publisher.subscribe(processor);
+    for (int i = 0; i < 10; i++) {
+      publisher.submit(new Repository("123"));
+    }
+    publisher.close();
+
+    assertTrue(subscriber.first.await(5, TimeUnit.SECONDS));
+    Thread.sleep(100);
+    assertEquals(1, subscriber.ids.size());
+
+    subscriber.subscription.request(20);
+    assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+    assertEquals(10, subscriber.ids.size());
+  }
+
+  /**
+   * Tests that a second subscriber is rejected.
+   */
+  @Test
+  public void testSingleSubscriber() throws InterruptedException {
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:create"), pool
+    );
+    processor.subscribe(new RecordingSubscriber(1));
+    RecordingSubscriber second = new RecordingSubscriber(1);
+    processor.subscribe(second);
+
+    assertTrue(second.done.await(1, TimeUnit.SECONDS));
+    assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  /**
+   * Tests that a non positive request is signaled as error.
+   */
+  @Test
+  public void testInvalidRequest() throws InterruptedException {
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:create"), pool
+    );
+    RecordingSubscriber subscriber = new RecordingSubscriber(0);
+    processor.subscribe(subscriber);
+    subscriber.subscription.request(-1);
+
+    assertTrue(subscriber.done.await(1, TimeUnit.SECONDS));
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+  }
+
+  /**
+   * Tests that a rejected batch is signaled as error and cancels the upstream subscription.
+   */
+  @Test
+  public void testRejectedExecution() {
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:create"), command -> {
+        throw new RejectedExecutionException("executor is shut down");
+      }, 1
+    );
+    RecordingSubscriber subscriber = new RecordingSubscriber(1);
+    processor.subscribe(subscriber);
+    RecordingSubscription upstream = new RecordingSubscription();
+    processor.onSubscribe(upstream);
+
+    processor.onNext(new Repository("abc"));
+    assertTrue(subscriber.error instanceof RejectedExecutionException);
+    assertTrue(upstream.cancelled);
+
+    // the processor is not stuck in the drain loop
+    processor.onNext(new Repository("abc"));
+    processor.onComplete();
+    assertEquals(0, subscriber.done.getCount());
+    assertTrue(subscriber.ids.isEmpty());
+  }
+
+  /**
+   * Tests that an exception of the subscriber cancels the upstream subscription.
+   */
+  @Test
+  public void testThrowingSubscriber() {
+    PermissionFilterProcessor<Repository> processor = new PermissionFilterProcessor<>(
+      new PermissionActionCheck<>("repository:create"), Runnable::run, 1
+    );
+    RecordingSubscriber subscriber = new RecordingSubscriber(10) {
+      @Override
+      public void onNext(Repository item) {
+        super.onNext(item);
+        throw new IllegalStateException("broken subscriber");
+      }
+    };
+    processor.subscribe(subscriber);
+    RecordingSubscription upstream = new RecordingSubscription();
+    processor.onSubscribe(upstream);
+
+    Thread thread = Thread.currentThread();
+    Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+    AtomicReference<Throwable> uncaught = new AtomicReference<>();
+    thread.setUncaughtExceptionHandler((t, e) -> uncaught.set(e));
+    try {
+      processor.onNext(new Repository("abc"));
+      assertTrue(uncaught.get() instanceof IllegalStateException);
+      assertTrue(upstream.cancelled);
+
+      processor.onNext(new Repository("abc"));
+      processor.onComplete();
+      assertEquals(1, subscriber.ids.size());
+      assertEquals(1, subscriber.done.getCount());
+    } finally {
+      thread.setUncaughtExceptionHandler(handler);
+    }
+  }
+
+  private static class RecordingSubscription implements Flow.Subscription {
+
+    private volatile boolean cancelled;
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<Repository> {
+
+    private final long initialRequest;
+    private final List<String> ids = new CopyOnWriteArrayList<>();
+    private final CountDownLatch first = new CountDownLatch(1);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+
+    private RecordingSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (initialRequest > 0) {
+        subscription.request(initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(Repository item) {
+      ids.add(item.getId());
+      first.countDown();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      done.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      done.countDown();
+    }
+  }
+
+  private static class WithoutSubjectThread extends ForkJoinWorkerThread {
+
+    private WithoutSubjectThread(ForkJoinPool pool) {
+      super(pool);
+    }
+
+    @Override
+    protected void onStart() {
+      super.onStart();
+      ThreadContext.remove();
+    }
+  }
+
+  private static class Repository implements PermissionObject {
+
+    private final String id;
+
+    private Repository(String id) {
+      this.id = id;
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+  }
+
+}
@@ -34,6 +34,7 @@ final class Action {
   
   private final String name;
   private final String constant;
+  private final boolean guarded;
 
   /**
    * Constructs a new instance.
@@ -42,8 +43,22 @@ final class Action {
    * @param constant action constant
    */
   Action(String name, String constant) {
+    this(name, constant, false);
+  }
+
+  private Action(String name, String constant, boolean guarded) {
     this.name = name;
     this.constant = constant;
+    this.guarded = guarded;
+  }
+
+  /**
+   * Returns a copy of the action, which is marked as guarded.
+   * 
+   * @return guarded action
+   */
+  Action asGuarded() {
+    return new Action(name, constant, true);
   }
 
   /**
@@ -63,5 +78,15 @@ final class Action {
   String getName() {
     return name;
   }
+
+  /**
+   * Returns {@code true} if a guard is registered for the action. Checks of actions without guard are passed
+   * directly to shiro.
+   * 
+   * @return {@code true} if the action is guarded
+   */
+  boolean isGuarded() {
+    return guarded;
+  }
   
 }
@@ -23,8 +23,11 @@
  */
 package com.github.sdorra.ssp;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,6 +38,8 @@ import java.util.Set;
  */
 public class StaticPermissionModel {
 
+  private static final String PASS_THROUGH_GUARD = PassThroughPermissionGuard.class.getName();
+
   private final String packageName;
   private final String className;
   private final String type;
@@ -43,6 +48,7 @@ public class StaticPermissionModel {
   private final Collection<Action> globalPermissions;
   private final boolean custom;
   private final boolean customGlobal;
+  private final boolean customGuarded;
   private final Map<String, GuardValue> guards;
 
   /**
@@ -62,8 +68,6 @@ public class StaticPermissionModel {
     this.className = className;
     this.type = annotation.value();
     this.permissionObject = permissionObject;
-    this.permissions = permissions;
-    this.globalPermissions = globalPermissions;
     this.custom = annotation.custom();
     this.customGlobal = annotation.customGlobal();
     this.guards = new HashMap<>();
@@ -71,24 +75,66 @@ public class StaticPermissionModel {
     guardsForPermissions.entrySet()
             .stream()
             .filter(entry -> entry.getKey() != null)
+            .filter(entry -> !isPassThrough(entry.getValue()))
             .forEach(
                     guard -> guards.put(guard.getKey(), new GuardValue(guard.getKey().toUpperCase(), guard.getValue())));
 
-    String fallbackPermissionGuard = guardsForPermissions.getOrDefault(null, "com.github.sdorra.ssp.PassThroughPermissionGuard");
+    String fallbackPermissionGuard = guardsForPermissions.get(null);
+    if (isPassThrough(fallbackPermissionGuard)) {
+      fallbackPermissionGuard = null;
+    }
+
+    verifyNames(permissions, globalPermissions);
+
+    this.permissions = markGuarded(permissions, guardsForPermissions, fallbackPermissionGuard);
+    this.globalPermissions = markGuarded(globalPermissions, guardsForPermissions, fallbackPermissionGuard);
+
+    this.customGuarded = fallbackPermissionGuard != null;
+    if (customGuarded) {
+      guards.put("__custom", new GuardValue("__CUSTOM", fallbackPermissionGuard));
+    }
+  }
+
+  private Collection<Action> markGuarded(Collection<Action> actions, Map<String, String> guardsForPermissions, String fallbackPermissionGuard) {
+    List<Action> guarded = new ArrayList<>();
+    for (Action action : actions) {
+      if (guards.containsKey(action.getName())) {
+        guarded.add(action.asGuarded());
+      } else if (fallbackPermissionGuard != null && !guardsForPermissions.containsKey(action.getName())) {
+        guards.put(action.getName(), new GuardValue(action.getName().toUpperCase(), fallbackPermissionGuard));
+        guarded.add(action.asGuarded());
+      } else {
+        guarded.add(action);
+      }
+    }
+    return guarded;
+  }
 
-    this.permissions.stream()
-            .map(Action::getName)
-            .filter(permission -> !guards.containsKey(permission))
-            .forEach(permission -> guards.put(permission, new GuardValue(permission.toUpperCase(), fallbackPermissionGuard))
-    );
+  /**
+   * Verifies that no action collides with a generated method, e.g. an action {@code readAny} collides with the
+   * generated method for any object of the action {@code read}.
+   */
+  private static void verifyNames(Collection<Action> permissions, Collection<Action> globalPermissions) {
+    Set<String> generated = new HashSet<>();
+    for (Action permission : permissions) {
+      generated.add(permission.getName().concat("Any"));
+    }
+    verifyNames(permissions, generated);
+    verifyNames(globalPermissions, generated);
+  }
 
-    this.globalPermissions.stream()
-            .map(Action::getName)
-            .filter(permission -> !guards.containsKey(permission))
-            .forEach(permission -> guards.put(permission, new GuardValue(permission.toUpperCase(), fallbackPermissionGuard))
-    );
+  private static void verifyNames(Collection<Action> actions, Set<String> generated) {
+    for (Action action : actions) {
+      if (generated.contains(action.getName())) {
+        throw new IllegalArgumentException(
+          "action " + action.getName() + " collides with the generated method " + action.getName() + "()"
+        );
+      }
+    }
+  }
 
-    guards.put("__custom", new GuardValue("__CUSTOM", fallbackPermissionGuard));
+  private static boolean isPassThrough(String guard) {
+    return PASS_THROUGH_GUARD.equals(guard);
   }
 
   /**
@@ -163,6 +209,15 @@ public class StaticPermissionModel {
     return custom;
   }
 
+  /**
+   * Return {@code true} if there are item specific permissions.
+   *
+   * @return {@code true} if there are item specific permissions
+   */
+  public boolean isObjectActions() {
+    return !permissions.isEmpty();
+  }
+
   /**
    * Return {@code true} if global custom permissions are allowed.
    *
@@ -172,6 +227,24 @@ public class StaticPermissionModel {
     return customGlobal;
   }
 
+  /**
+   * Return {@code true} if custom or global custom permissions are allowed.
+   *
+   * @return {@code true} if custom actions have to be resolved
+   */
+  public boolean isCustomActions() {
+    return custom || customGlobal;
+  }
+
+  /**
+   * Return {@code true} if a guard is registered for custom actions.
+   *
+   * @return {@code true} if custom actions are guarded
+   */
+  public boolean isCustomGuarded() {
+    return customGuarded;
+  }
+
   public Set<Map.Entry<String, GuardValue>> getGuards() {
     return guards.entrySet();
   }
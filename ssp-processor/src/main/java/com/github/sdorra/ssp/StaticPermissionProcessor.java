@@ -33,6 +33,7 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 import java.io.IOException;
 import java.io.Writer;
@@ -45,7 +46,7 @@ import java.util.Set;
  *
  * @author Sebastian Sdorra
  */
-@SupportedAnnotationTypes("*")
+@SupportedAnnotationTypes("com.github.sdorra.ssp.StaticPermissions")
 @MetaInfServices(Processor.class)
 @SuppressWarnings({"Since16"})
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
@@ -81,6 +82,9 @@ public class StaticPermissionProcessor extends AbstractProcessor {
 
       write(model);
     }
+    catch (IllegalArgumentException ex) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, ex.getMessage(), typeElement);
+    }
     catch (IOException ex) {
       throw new IllegalStateException("failed to create model", ex);
     }
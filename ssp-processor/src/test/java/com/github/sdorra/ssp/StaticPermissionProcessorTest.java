@@ -49,11 +49,9 @@ public class StaticPermissionProcessorTest {
             Joiner.on(System.lineSeparator()).join(
                     "package com.example;",
                     "",
-                    "import com.github.sdorra.ssp.Constants;",
-                    "import com.github.sdorra.ssp.PermissionCheck;",
+                    "import com.github.sdorra.ssp.PermissionAction;",
                     "import com.github.sdorra.ssp.PermissionActionCheck;",
-                    "import com.github.sdorra.ssp.PermissionActionCheckInterceptor;",
-                    "import com.github.sdorra.ssp.PermissionCheckInterceptorWrapper;",
+                    "import com.github.sdorra.ssp.PermissionCheck;",
                     "import com.github.sdorra.ssp.PermissionGuard;",
                     "",
                     "public final class APermissions {",
@@ -62,41 +60,12 @@ public class StaticPermissionProcessorTest {
                     "",
                     "  public static final String ACTION_CREATE = \"create\";",
                     "",
-                    "  private static final PermissionGuard<A> __CUSTOM_GUARD = new com.github.sdorra.ssp.PassThroughPermissionGuard();",
-                    "",
-                    "  private static final PermissionGuard<A> CREATE_GUARD = new com.github.sdorra.ssp.PassThroughPermissionGuard();",
+                    "  private static final PermissionAction<A> CREATE_ACTION = new PermissionAction<>(TYPE, ACTION_CREATE);",
                     "",
                     "  private APermissions(){}",
                     "",
                     "  public static PermissionCheck create() {",
-                    "    return check(ACTION_CREATE, createPermissionCheckWrapper(\"create\", CREATE_GUARD));",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forRaw(interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, String id, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forId(id, interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, A item, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forItem(item, interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionActionCheck<A> actionCheck(String action, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(action);",
-                    "    return new PermissionActionCheck<>(TYPE.concat(Constants.SEPARATOR).concat(action), interceptor);",
-                    "  }",
-                    "",
-                    "  private static PermissionCheck check(String permission, PermissionCheckInterceptorWrapper wrapper) {",
-                    "    return new PermissionCheck(TYPE.concat(Constants.SEPARATOR).concat(permission), wrapper);",
+                    "    return CREATE_ACTION.check();",
                     "  }",
                     "}"
             )
@@ -121,11 +90,10 @@ public class StaticPermissionProcessorTest {
             Joiner.on(System.lineSeparator()).join(
                     "package com.example;",
                     "",
-                    "import com.github.sdorra.ssp.Constants;",
-                    "import com.github.sdorra.ssp.PermissionCheck;",
+                    "import com.github.sdorra.ssp.CustomPermissionActions;",
+                    "import com.github.sdorra.ssp.PermissionAction;",
                     "import com.github.sdorra.ssp.PermissionActionCheck;",
-                    "import com.github.sdorra.ssp.PermissionActionCheckInterceptor;",
-                    "import com.github.sdorra.ssp.PermissionCheckInterceptorWrapper;",
+                    "import com.github.sdorra.ssp.PermissionCheck;",
                     "import com.github.sdorra.ssp.PermissionGuard;",
                     "",
                     "public final class APermissions {",
@@ -134,45 +102,18 @@ public class StaticPermissionProcessorTest {
                     "",
                     "  public static final String ACTION_CREATE = \"create\";",
                     "",
-                    "  private static final PermissionGuard<A> __CUSTOM_GUARD = new com.github.sdorra.ssp.PassThroughPermissionGuard();",
+                    "  private static final PermissionAction<A> CREATE_ACTION = new PermissionAction<>(TYPE, ACTION_CREATE);",
                     "",
-                    "  private static final PermissionGuard<A> CREATE_GUARD = new com.github.sdorra.ssp.PassThroughPermissionGuard();",
+                    "  private static final CustomPermissionActions<A> __CUSTOM_ACTIONS = new CustomPermissionActions<>(TYPE);",
                     "",
                     "  private APermissions(){}",
                     "",
                     "  public static PermissionCheck create() {",
-                    "    return check(ACTION_CREATE, createPermissionCheckWrapper(\"create\", CREATE_GUARD));",
+                    "    return CREATE_ACTION.check();",
                     "  }",
                     "",
                     "  public static PermissionCheck custom(String customAction) {",
-                    "    return check(customAction, createPermissionCheckWrapper(customAction, __CUSTOM_GUARD));",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forRaw(interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, String id, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forId(id, interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, A item, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forItem(item, interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionActionCheck<A> actionCheck(String action, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(action);",
-                    "    return new PermissionActionCheck<>(TYPE.concat(Constants.SEPARATOR).concat(action), interceptor);",
-                    "  }",
-                    "",
-                    "  private static PermissionCheck check(String permission, PermissionCheckInterceptorWrapper wrapper) {",
-                    "    return new PermissionCheck(TYPE.concat(Constants.SEPARATOR).concat(permission), wrapper);",
+                    "    return __CUSTOM_ACTIONS.get(customAction).check();",
                     "  }",
                     "}"
             )
@@ -197,11 +138,10 @@ public class StaticPermissionProcessorTest {
             Joiner.on(System.lineSeparator()).join(
                     "package com.example;",
                     "",
-                    "import com.github.sdorra.ssp.Constants;",
-                    "import com.github.sdorra.ssp.PermissionCheck;",
+                    "import com.github.sdorra.ssp.CustomPermissionActions;",
+                    "import com.github.sdorra.ssp.PermissionAction;",
                     "import com.github.sdorra.ssp.PermissionActionCheck;",
-                    "import com.github.sdorra.ssp.PermissionActionCheckInterceptor;",
-                    "import com.github.sdorra.ssp.PermissionCheckInterceptorWrapper;",
+                    "import com.github.sdorra.ssp.PermissionCheck;",
                     "import com.github.sdorra.ssp.PermissionGuard;",
                     "",
                     "public final class APermissions {",
@@ -210,53 +150,26 @@ public class StaticPermissionProcessorTest {
                     "",
                     "  public static final String ACTION_CREATE = \"create\";",
                     "",
-                    "  private static final PermissionGuard<A> __CUSTOM_GUARD = new com.github.sdorra.ssp.PassThroughPermissionGuard();",
+                    "  private static final PermissionAction<A> CREATE_ACTION = new PermissionAction<>(TYPE, ACTION_CREATE);",
                     "",
-                    "  private static final PermissionGuard<A> CREATE_GUARD = new com.github.sdorra.ssp.PassThroughPermissionGuard();",
+                    "  private static final CustomPermissionActions<A> __CUSTOM_ACTIONS = new CustomPermissionActions<>(TYPE);",
                     "",
                     "  private APermissions(){}",
                     "",
                     "  public static PermissionCheck create() {",
-                    "    return check(ACTION_CREATE, createPermissionCheckWrapper(\"create\", CREATE_GUARD));",
+                    "    return CREATE_ACTION.check();",
                     "  }",
                     "",
                     "  public static PermissionCheck custom(String customAction, String id) {",
-                    "    return check(customAction.concat(Constants.SEPARATOR).concat(id), createPermissionCheckWrapper(customAction, id, __CUSTOM_GUARD));",
+                    "    return __CUSTOM_ACTIONS.get(customAction).check(id);",
                     "  }",
                     "",
                     "  public static PermissionCheck custom(String customAction, A item) {",
-                    "    return check(customAction.concat(Constants.SEPARATOR).concat(item.getId()), createPermissionCheckWrapper(customAction, item, __CUSTOM_GUARD));",
+                    "    return __CUSTOM_ACTIONS.get(customAction).check(item);",
                     "  }",
                     "",
                     "  public static PermissionActionCheck<A> customActionCheck(String customAction) {",
-                    "    return actionCheck(customAction, __CUSTOM_GUARD);",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forRaw(interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, String id, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forId(id, interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, A item, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forItem(item, interceptor);",
-                    "    return wrapper;",
-                    "  }",
-                    "",
-                    "  private static PermissionActionCheck<A> actionCheck(String action, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(action);",
-                    "    return new PermissionActionCheck<>(TYPE.concat(Constants.SEPARATOR).concat(action), interceptor);",
-                    "  }",
-                    "",
-                    "  private static PermissionCheck check(String permission, PermissionCheckInterceptorWrapper wrapper) {",
-                    "    return new PermissionCheck(TYPE.concat(Constants.SEPARATOR).concat(permission), wrapper);",
+                    "    return __CUSTOM_ACTIONS.get(customAction).actionCheck();",
                     "  }",
                     "}"
             )
@@ -305,11 +218,10 @@ public class StaticPermissionProcessorTest {
             Joiner.on(System.lineSeparator()).join(
                     "package com.example;",
                     "",
-                    "import com.github.sdorra.ssp.Constants;",
-                    "import com.github.sdorra.ssp.PermissionCheck;",
+                    "import com.github.sdorra.ssp.CustomPermissionActions;",
+                    "import com.github.sdorra.ssp.PermissionAction;",
                     "import com.github.sdorra.ssp.PermissionActionCheck;",
-                    "import com.github.sdorra.ssp.PermissionActionCheckInterceptor;",
-                    "import com.github.sdorra.ssp.PermissionCheckInterceptorWrapper;",
+                    "import com.github.sdorra.ssp.PermissionCheck;",
                     "import com.github.sdorra.ssp.PermissionGuard;",
                     "",
                     "public final class APermissions {",
@@ -322,49 +234,102 @@ public class StaticPermissionProcessorTest {
                     "",
                     "  private static final PermissionGuard<A> CREATE_GUARD = new com.example.A.CreateGuard();",
                     "",
+                    "  private static final PermissionAction<A> CREATE_ACTION = new PermissionAction<>(TYPE, ACTION_CREATE, CREATE_GUARD);",
+                    "",
+                    "  private static final CustomPermissionActions<A> __CUSTOM_ACTIONS = new CustomPermissionActions<>(TYPE, __CUSTOM_GUARD);",
+                    "",
                     "  private APermissions(){}",
                     "",
                     "  public static PermissionCheck create() {",
-                    "    return check(ACTION_CREATE, createPermissionCheckWrapper(\"create\", CREATE_GUARD));",
+                    "    return CREATE_ACTION.check();",
                     "  }",
                     "",
                     "  public static PermissionCheck custom(String customAction, String id) {",
-                    "    return check(customAction.concat(Constants.SEPARATOR).concat(id), createPermissionCheckWrapper(customAction, id, __CUSTOM_GUARD));",
+                    "    return __CUSTOM_ACTIONS.get(customAction).check(id);",
                     "  }",
                     "",
                     "  public static PermissionCheck custom(String customAction, A item) {",
-                    "    return check(customAction.concat(Constants.SEPARATOR).concat(item.getId()), createPermissionCheckWrapper(customAction, item, __CUSTOM_GUARD));",
+                    "    return __CUSTOM_ACTIONS.get(customAction).check(item);",
                     "  }",
                     "",
                     "  public static PermissionActionCheck<A> customActionCheck(String customAction) {",
-                    "    return actionCheck(customAction, __CUSTOM_GUARD);",
+                    "    return __CUSTOM_ACTIONS.get(customAction).actionCheck();",
                     "  }",
+                    "}"
+            )
+    );
+
+    final JavaFileObject interfaceInputWithPassThroughGuard = JavaFileObjects.forSourceString(
+            "com.example.A",
+            Joiner.on(System.lineSeparator()).join(
+                    "package com.example;",
                     "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forRaw(interceptor);",
-                    "    return wrapper;",
+                    "import com.github.sdorra.ssp.Guard;",
+                    "import com.github.sdorra.ssp.PassThroughPermissionGuard;",
+                    "import com.github.sdorra.ssp.StaticPermissions;",
+                    "import com.github.sdorra.ssp.PermissionObject;",
+                    "import com.github.sdorra.ssp.PermissionGuard;",
+                    "import com.github.sdorra.ssp.PermissionActionCheckInterceptor;",
+                    "",
+                    "@StaticPermissions(",
+                    "        value = \"a\",",
+                    "        permissions = {},",
+                    "        custom = true,",
+                    "        guards = {",
+                    "          @Guard(guard = PassThroughPermissionGuard.class, guardedPermissions = \"create\"),",
+                    "          @Guard(guard = A.DefaultGuard.class)",
+                    "        }",
+                    "    )",
+                    "interface A extends PermissionObject {",
+                    "  static class DefaultGuard implements PermissionGuard<A> {",
+                    "    @Override",
+                    "    public PermissionActionCheckInterceptor<A> intercept(String permission) {",
+                    "      return new PermissionActionCheckInterceptor<A>(){};",
+                    "    }",
                     "  }",
+                    "}"
+            )
+    );
+
+    final JavaFileObject expectedOutputWithPassThroughGuard = JavaFileObjects.forSourceString(
+            "com.example.APermissions",
+            Joiner.on(System.lineSeparator()).join(
+                    "package com.example;",
                     "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, String id, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forId(id, interceptor);",
-                    "    return wrapper;",
+                    "import com.github.sdorra.ssp.CustomPermissionActions;",
+                    "import com.github.sdorra.ssp.PermissionAction;",
+                    "import com.github.sdorra.ssp.PermissionActionCheck;",
+                    "import com.github.sdorra.ssp.PermissionCheck;",
+                    "import com.github.sdorra.ssp.PermissionGuard;",
+                    "",
+                    "public final class APermissions {",
+                    "",
+                    "  private static final String TYPE = \"a\";",
+                    "",
+                    "  public static final String ACTION_CREATE = \"create\";",
+                    "",
+                    "  private static final PermissionGuard<A> __CUSTOM_GUARD = new com.example.A.DefaultGuard();",
+                    "",
+                    "  private static final PermissionAction<A> CREATE_ACTION = new PermissionAction<>(TYPE, ACTION_CREATE);",
+                    "",
+                    "  private static final CustomPermissionActions<A> __CUSTOM_ACTIONS = new CustomPermissionActions<>(TYPE, __CUSTOM_GUARD);",
+                    "",
+                    "  private APermissions(){}",
+                    "",
+                    "  public static PermissionCheck create() {",
+                    "    return CREATE_ACTION.check();",
                     "  }",
                     "",
-                    "  private static PermissionCheckInterceptorWrapper createPermissionCheckWrapper(String customAction, A item, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(customAction);",
-                    "    PermissionCheckInterceptorWrapper wrapper = PermissionCheckInterceptorWrapper.forItem(item, interceptor);",
-                    "    return wrapper;",
+                    "  public static PermissionCheck custom(String customAction, String id) {",
+                    "    return __CUSTOM_ACTIONS.get(customAction).check(id);",
                     "  }",
                     "",
-                    "  private static PermissionActionCheck<A> actionCheck(String action, PermissionGuard<A> guard) {",
-                    "    PermissionActionCheckInterceptor<A> interceptor = guard.intercept(action);",
-                    "    return new PermissionActionCheck<>(TYPE.concat(Constants.SEPARATOR).concat(action), interceptor);",
+                    "  public static PermissionCheck custom(String customAction, A item) {",
+                    "    return __CUSTOM_ACTIONS.get(customAction).check(item);",
                     "  }",
                     "",
-                    "  private static PermissionCheck check(String permission, PermissionCheckInterceptorWrapper wrapper) {",
-                    "    return new PermissionCheck(TYPE.concat(Constants.SEPARATOR).concat(permission), wrapper);",
+                    "  public static PermissionActionCheck<A> customActionCheck(String customAction) {",
+                    "    return __CUSTOM_ACTIONS.get(customAction).actionCheck();",
                     "  }",
                     "}"
             )
@@ -409,6 +374,58 @@ public class StaticPermissionProcessorTest {
         processAndAssert(interfaceInputWithGuards, expectedOutputWithGuards);
     }
 
+    @Test
+    public void shouldNotGenerateGuardForPassThroughGuard() {
+        processAndAssert(interfaceInputWithPassThroughGuard, expectedOutputWithPassThroughGuard);
+    }
+
+    @Test
+    public void shouldRejectActionWhichCollidesWithAny() {
+        final JavaFileObject input = JavaFileObjects.forSourceString(
+                "com.example.A",
+                Joiner.on(System.lineSeparator()).join(
+                        "package com.example;",
+                        "",
+                        "import com.github.sdorra.ssp.StaticPermissions;",
+                        "import com.github.sdorra.ssp.PermissionObject;",
+                        "",
+                        "@StaticPermissions(value = \"a\", permissions = {\"read\"}, globalPermissions = {\"readAny\"})",
+                        "interface A extends PermissionObject {",
+                        "}"
+                )
+        );
+
+        Truth.assert_()
+             .about(JavaSourcesSubjectFactory.javaSources())
+             .that(Collections.singletonList(input))
+             .processedWith(new StaticPermissionProcessor())
+             .failsToCompile()
+             .withErrorContaining("action readAny collides with the generated method readAny()");
+    }
+
+    @Test
+    public void shouldGenerateWithActionsNamedLikeMatrixMethods() {
+        final JavaFileObject input = JavaFileObjects.forSourceString(
+                "com.example.A",
+                Joiner.on(System.lineSeparator()).join(
+                        "package com.example;",
+                        "",
+                        "import com.github.sdorra.ssp.StaticPermissions;",
+                        "import com.github.sdorra.ssp.PermissionObject;",
+                        "",
+                        "@StaticPermissions(value = \"a\", permissions = {\"read\", \"actionCheck\", \"matrix\"}, globalPermissions = {\"create\"})",
+                        "interface A extends PermissionObject {",
+                        "}"
+                )
+        );
+
+        Truth.assert_()
+             .about(JavaSourcesSubjectFactory.javaSources())
+             .that(Collections.singletonList(input))
+             .processedWith(new StaticPermissionProcessor())
+             .compilesWithoutError();
+    }
+
     private void processAndAssert(JavaFileObject input, JavaFileObject output) {
         Truth.assert_()
              .about(JavaSourcesSubjectFactory.javaSources())